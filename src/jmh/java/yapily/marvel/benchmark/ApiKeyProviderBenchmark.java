@@ -0,0 +1,27 @@
+package yapily.marvel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
+import yapily.marvel.service.ApiKeyProvider;
+
+/**
+ * Measures signing a call to the Marvel API
+ */
+@State(Scope.Benchmark)
+public class ApiKeyProviderBenchmark {
+    private ApiKeyProvider apiKeyProvider;
+
+    @Setup
+    public void setUp() {
+        apiKeyProvider = new ApiKeyProvider(BenchmarkFixtures.writeApiKeys().toString(), "marvel.key.public", "marvel.key.private",
+                "yandex.key");
+    }
+
+    @Benchmark
+    public String getMarvelApiUri() throws MarvelApiKeyNotFoundException {
+        return apiKeyProvider.getMarvelApiUri();
+    }
+}
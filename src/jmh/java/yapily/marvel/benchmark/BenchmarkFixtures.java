@@ -0,0 +1,46 @@
+package yapily.marvel.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Loads the test fixtures shared by the benchmarks
+ */
+final class BenchmarkFixtures {
+    static final String SAMPLE_MARVEL_CHARACTERS_JSON = "/sample_marvel_characters.json";
+    static final String SINGLE_MARVEL_CHARACTER_JSON = "/single_marvel_character.json";
+
+    private BenchmarkFixtures() {
+    }
+
+    static String readFixture(String name) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(BenchmarkFixtures.class.getResource(name).toURI())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes an api key file with dummy keys, since the benchmarks never call the real Marvel or Yandex APIs
+     *
+     * @return - the location of the api key file
+     */
+    static Path writeApiKeys() {
+        try {
+            Path apiKeys = Files.createTempFile("api_key", null);
+            apiKeys.toFile().deleteOnExit();
+            return Files.write(apiKeys, Arrays.asList("marvel.key.public = 19906446e8f82a4809bca1f44a213063",
+                    "marvel.key.private = 0123456789abcdef0123456789abcdef01234567", "yandex.key = yandex_key"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package yapily.marvel.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import yapily.marvel.model.CharacterIds;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures serialising the Marvel Character IDs returned by GET /characters, as a JSON array and as newline delimited JSON
+ */
+@State(Scope.Benchmark)
+public class CharacterIdsBenchmark {
+    @Param("1500")
+    public int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CharacterIds ids;
+
+    @Setup
+    public void setUp() {
+        List<Long> list = new ArrayList<>(size);
+        for (long id = 0; id < size; id++) {
+            list.add(1009144L + id);
+        }
+        ids = new CharacterIds(list);
+    }
+
+    @Benchmark
+    public byte[] serialiseCharacterIds() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ids);
+    }
+
+    @Benchmark
+    public byte[] streamCharacterIds() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(size * 8);
+        ids.writeNdjson(outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,35 @@
+package yapily.marvel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import yapily.marvel.exceptions.MissingJsonNodeException;
+import yapily.marvel.exceptions.UnableToProcessJsonException;
+import yapily.marvel.model.MarvelCharacter;
+import yapily.marvel.model.MarvelPage;
+
+import java.util.List;
+
+/**
+ * Measures parsing a page of Marvel Characters, both into a list of {@link MarvelCharacter}s and into a page holding the total
+ */
+@State(Scope.Benchmark)
+public class MarvelCharacterBenchmark {
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkFixtures.readFixture(BenchmarkFixtures.SAMPLE_MARVEL_CHARACTERS_JSON);
+    }
+
+    @Benchmark
+    public List<MarvelCharacter> getCharactersFromJson() throws UnableToProcessJsonException, MissingJsonNodeException {
+        return MarvelCharacter.getCharactersFromJson(json);
+    }
+
+    @Benchmark
+    public MarvelPage<MarvelCharacter> getCharactersPageFromJson() throws UnableToProcessJsonException, MissingJsonNodeException {
+        return MarvelCharacter.getCharactersPageFromJson(json);
+    }
+}
@@ -0,0 +1,106 @@
+package yapily.marvel.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.util.UriComponentsBuilder;
+import yapily.marvel.HttpClientConfig;
+import yapily.marvel.controller.MarvelController;
+import yapily.marvel.service.ApiKeyProvider;
+import yapily.marvel.service.CharacterSnapshotStore;
+import yapily.marvel.service.HotCharacterTracker;
+import yapily.marvel.service.MarvelCrawler;
+import yapily.marvel.service.MarvelServiceImpl;
+import yapily.marvel.service.UpstreamScheduler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Measures GET /characters/{id} end to end, from the controller down to the HTTP call to the Marvel API, which is answered by a stub
+ * server running in the same JVM. With the character cache enabled, only the first call reaches the stub.
+ */
+@State(Scope.Benchmark)
+public class MarvelControllerBenchmark {
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private HttpServer marvelStub;
+    private CloseableHttpClient httpClient;
+    private MarvelCrawler marvelCrawler;
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] json = BenchmarkFixtures.readFixture(BenchmarkFixtures.SINGLE_MARVEL_CHARACTER_JSON).getBytes(StandardCharsets.UTF_8);
+        marvelStub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        marvelStub.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, json.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(json);
+            }
+        });
+        marvelStub.start();
+
+        int port = marvelStub.getAddress().getPort();
+        ClientHttpRequestInterceptor redirectToStub = (request, body, execution) -> execution.execute(new HttpRequestWrapper(request) {
+            @Override
+            public URI getURI() {
+                return UriComponentsBuilder.fromUri(super.getURI()).scheme("http").host("localhost").port(port).build(true).toUri();
+            }
+        }, body);
+
+        httpClient = new HttpClientConfig().httpClient(100, 50, Duration.ofSeconds(30), Duration.ofSeconds(2), Duration.ofSeconds(10));
+        RestTemplateBuilder builder = new RestTemplateBuilder()
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .additionalInterceptors(redirectToStub);
+
+        CacheManager cacheManager = cached ? new ConcurrentMapCacheManager() : new NoOpCacheManager();
+        ApiKeyProvider apiKeyProvider = new ApiKeyProvider(BenchmarkFixtures.writeApiKeys().toString(), "marvel.key.public",
+                "marvel.key.private", "yandex.key");
+        marvelCrawler = new MarvelCrawler(1);
+
+        MarvelServiceImpl marvelService = new MarvelServiceImpl(null, builder, marvelCrawler, cacheManager, apiKeyProvider,
+                new CharacterSnapshotStore(""), new UpstreamScheduler(new SimpleMeterRegistry(), 1_000_000, 1_000_000,
+                1_000_000, 1_000_000, Duration.ofMillis(1), Duration.ofMillis(10), 2, Duration.ofSeconds(5)),
+                new HotCharacterTracker(10000, ""), new SimpleMeterRegistry(),
+                Duration.ofSeconds(10), 100, 1);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MarvelController(marvelService, 1000, "", "", "")).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        marvelStub.stop(0);
+        marvelCrawler.shutdown();
+        httpClient.close();
+    }
+
+    @Benchmark
+    public String getCharacter() throws Exception {
+        return mockMvc.perform(get("/characters/1017100")).andReturn().getResponse().getContentAsString();
+    }
+}
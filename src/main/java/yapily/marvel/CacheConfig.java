@@ -0,0 +1,84 @@
+package yapily.marvel;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Initialises the application caches
+ */
+@Configuration
+public class CacheConfig {
+    public static final String CHARACTERS_CACHE = "characters";
+    public static final String CHARACTER_CACHE = "character";
+    public static final String TRANSLATIONS_CACHE = "translations";
+
+    /**
+     * Stored in the {@link #CHARACTER_CACHE} for IDs the Marvel API answered with a 404, so repeated lookups of unknown characters don't
+     * reach the Marvel API until the entry expires
+     */
+    public static final Object NOT_FOUND = new Object();
+
+    @Bean
+    public CacheManager cacheManager(@Value("${marvel.cache.character.ttl}") Duration characterTtl,
+                                     @Value("${marvel.cache.character.not-found-ttl}") Duration notFoundTtl,
+                                     @Value("${marvel.cache.character.max-size}") long characterMaxSize,
+                                     @Value("${yandex.cache.translations.ttl}") Duration translationsTtl,
+                                     @Value("${yandex.cache.translations.max-size}") long translationsMaxSize) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(Arrays.asList(
+                //The list of IDs is refreshed explicitly, so it never expires
+                new CaffeineCache(CHARACTERS_CACHE, Caffeine.newBuilder()
+                        .recordStats()
+                        .build()),
+                //Caffeine evicts using W-TinyLFU once the maximum size is reached
+                new CaffeineCache(CHARACTER_CACHE, Caffeine.newBuilder()
+                        .maximumSize(characterMaxSize)
+                        .expireAfter(new CharacterExpiry(characterTtl, notFoundTtl))
+                        .recordStats()
+                        .build()),
+                new CaffeineCache(TRANSLATIONS_CACHE, Caffeine.newBuilder()
+                        .maximumSize(translationsMaxSize)
+                        .expireAfterWrite(translationsTtl)
+                        .recordStats()
+                        .build())));
+
+        return cacheManager;
+    }
+
+    /**
+     * Expires found characters after their TTL and {@link #NOT_FOUND} entries after the, usually shorter, not found TTL
+     */
+    private static class CharacterExpiry implements Expiry<Object, Object> {
+        private final long ttlNanos;
+        private final long notFoundTtlNanos;
+
+        CharacterExpiry(Duration ttl, Duration notFoundTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.notFoundTtlNanos = notFoundTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return value == NOT_FOUND ? notFoundTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
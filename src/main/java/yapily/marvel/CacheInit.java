@@ -1,33 +1,125 @@
 package yapily.marvel;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
-import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
-import yapily.marvel.exceptions.MissingJsonNodeException;
-import yapily.marvel.exceptions.UnableToProcessJsonException;
+import yapily.marvel.model.CharacterIds;
 import yapily.marvel.service.MarvelService;
 
+import java.time.Duration;
+import java.time.Instant;
+
 /**
- * Initializes the Cache
+ * Initializes the Cache. If the Marvel Characters were saved to disk by a previous run, they are loaded as soon as the application starts
+ * and only revalidated against the Marvel API in the background. Otherwise the warm-up runs in the background, retrying with an
+ * exponential backoff until it succeeds, and its progress is reported through the {@link CharacterIdsHealthIndicator} so the application
+ * only takes traffic once the cache is warm.
  */
 @Component
 public class CacheInit implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheInit.class);
+
     private final MarvelService marvelService;
+    private final TaskScheduler taskScheduler;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private volatile boolean warm;
+    private volatile int attempts;
+    private volatile Exception lastError;
 
-    public CacheInit(MarvelService marvelService) {
+    public CacheInit(MarvelService marvelService, TaskScheduler taskScheduler,
+                     @Value("${marvel.warmup.initial-backoff}") Duration initialBackoff,
+                     @Value("${marvel.warmup.max-backoff}") Duration maxBackoff) {
         this.marvelService = marvelService;
+        this.taskScheduler = taskScheduler;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
     }
 
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
-        //Since getting all the Marvel Characters is an expensive operation, once the Application starts, we'll call the getCharacters
-        // method to store it in the cache.
+        if (restore()) {
+            taskScheduler.schedule(this::revalidate, Instant.now());
+        } else {
+            //Since getting all the Marvel Characters is an expensive operation, once the Application starts, we'll call the getCharacters
+            // method in the background to store it in the cache.
+            taskScheduler.schedule(this::warmUp, Instant.now());
+        }
+    }
+
+    /**
+     * Loads the Marvel Characters saved to disk by a previous run into the cache
+     *
+     * @return - true if the cache is warm
+     */
+    protected boolean restore() {
+        CharacterIds characterIds = marvelService.restoreCharactersIds();
+        if (characterIds == null) {
+            return false;
+        }
+
+        warm = true;
+        LOGGER.info("Marvel Character IDs cache warmed up with {} IDs saved by a previous run", characterIds.size());
+        return true;
+    }
+
+    /**
+     * Fetches the Marvel Characters modified since the snapshot loaded by {@link #restore()} was taken. If it fails, the cache stays
+     * warm with the restored Characters until the next scheduled refresh.
+     */
+    protected void revalidate() {
+        try {
+            CharacterIds characterIds = marvelService.refreshCharactersIds();
+            LOGGER.info("Revalidated the restored Marvel Character IDs, {} IDs are now cached", characterIds.size());
+        } catch (Exception e) {
+            lastError = e;
+            LOGGER.warn("Unable to revalidate the restored Marvel Character IDs, they will be refreshed with the next scheduled refresh", e);
+        }
+    }
+
+    /**
+     * Loads the Marvel Character IDs into the cache, scheduling another attempt if it fails
+     */
+    protected void warmUp() {
+        attempts++;
         try {
             marvelService.getCharactersIds();
-        } catch (MarvelApiKeyNotFoundException | UnableToProcessJsonException | MissingJsonNodeException | JsonProcessingException e) {
-            e.printStackTrace();
+            warm = true;
+            lastError = null;
+            LOGGER.info("Marvel Character IDs cache warmed up after {} attempt(s)", attempts);
+        } catch (Exception e) {
+            lastError = e;
+            Duration backoff = getBackoff(attempts);
+            LOGGER.warn("Unable to warm up the Marvel Character IDs cache, retrying in {} ms", backoff.toMillis(), e);
+            taskScheduler.schedule(this::warmUp, Instant.now().plus(backoff));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Doubles the initial backoff for every failed attempt, up to the maximum backoff
+     *
+     * @param attempts - the number of failed attempts so far
+     * @return - how long to wait before the next attempt
+     */
+    protected Duration getBackoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Exception getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,31 @@
+package yapily.marvel;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the application as out of service until the Marvel Character IDs cache has been warmed up. It is part of the readiness health
+ * group, so instances don't take traffic before their cache is warm.
+ */
+@Component
+public class CharacterIdsHealthIndicator implements HealthIndicator {
+    private final CacheInit cacheInit;
+
+    public CharacterIdsHealthIndicator(CacheInit cacheInit) {
+        this.cacheInit = cacheInit;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheInit.isWarm() ? Health.up() : Health.outOfService();
+        builder.withDetail("attempts", cacheInit.getAttempts());
+
+        Exception lastError = cacheInit.getLastError();
+        if (lastError != null) {
+            builder.withDetail("lastError", lastError.getMessage() == null ? lastError.getClass().getName() : lastError.getMessage());
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,106 @@
+package yapily.marvel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.service.MarvelService;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Periodically refreshes the cached list of Marvel Character IDs in the background. The list is swapped in once the crawl completes, so
+ * requests keep being served from the previous list in the meantime. Most refreshes only fetch the Characters modified since the previous
+ * one, and a full resync, which also drops the Characters removed from the Marvel API, runs once every full sync interval.
+ */
+@Component
+public class CharacterIdsRefresher implements InfoContributor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CharacterIdsRefresher.class);
+
+    private final MarvelService marvelService;
+    private final TaskScheduler taskScheduler;
+    private final Duration interval;
+    private final Duration jitter;
+    private final Duration fullSyncInterval;
+
+    private volatile Instant lastRefresh;
+    private volatile Duration lastRefreshDuration;
+    private volatile int lastRefreshSize;
+    private volatile Instant lastFullSync;
+
+    public CharacterIdsRefresher(MarvelService marvelService, TaskScheduler taskScheduler,
+                                 @Value("${marvel.refresh.interval}") Duration interval,
+                                 @Value("${marvel.refresh.jitter}") Duration jitter,
+                                 @Value("${marvel.mirror.full-sync-interval}") Duration fullSyncInterval) {
+        this.marvelService = marvelService;
+        this.taskScheduler = taskScheduler;
+        this.interval = interval;
+        this.jitter = jitter;
+        this.fullSyncInterval = fullSyncInterval;
+    }
+
+    @PostConstruct
+    public void scheduleFirstRefresh() {
+        //The cache warm-up loads the whole catalogue when the application starts
+        lastFullSync = Instant.now();
+        scheduleNextRefresh();
+    }
+
+    /**
+     * Refreshes the list of Marvel Character IDs and schedules the next refresh, whether this one succeeded or not
+     */
+    public void refresh() {
+        Instant start = Instant.now();
+        boolean full = lastFullSync == null || !start.isBefore(lastFullSync.plus(fullSyncInterval));
+        try {
+            CharacterIds ids = full ? marvelService.resyncCharactersIds() : marvelService.refreshCharactersIds();
+            if (full) {
+                lastFullSync = start;
+            }
+            lastRefreshDuration = Duration.between(start, Instant.now());
+            lastRefresh = start;
+            lastRefreshSize = ids.size();
+            LOGGER.info("Refreshed {} Marvel Character IDs in {} ms", lastRefreshSize, lastRefreshDuration.toMillis());
+        } catch (Exception e) {
+            LOGGER.warn("Unable to refresh the Marvel Character IDs, the previous list will be kept", e);
+        } finally {
+            scheduleNextRefresh();
+        }
+    }
+
+    public Instant getLastRefresh() {
+        return lastRefresh;
+    }
+
+    public Duration getLastRefreshDuration() {
+        return lastRefreshDuration;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("lastRefresh", lastRefresh);
+        details.put("lastRefreshDurationMs", lastRefreshDuration == null ? null : lastRefreshDuration.toMillis());
+        details.put("size", lastRefreshSize);
+        details.put("lastFullSync", lastFullSync);
+        builder.withDetail("characters", details);
+    }
+
+    /**
+     * Schedules the next refresh after the interval plus a random jitter, so replicas started together don't all crawl the Marvel API at
+     * the same time
+     */
+    private void scheduleNextRefresh() {
+        long jitterMillis = jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+        taskScheduler.schedule(this::refresh, Instant.now().plus(interval).plusMillis(jitterMillis));
+    }
+}
@@ -0,0 +1,62 @@
+package yapily.marvel;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Initialises the HTTP client shared by every call to the Marvel and Yandex APIs. Connections are pooled and kept alive between calls,
+ * so TLS handshakes are only paid when a new connection is needed, and gzip responses are decoded transparently.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(@Value("${http.client.max-connections}") int maxConnections,
+                                          @Value("${http.client.max-connections-per-route}") int maxConnectionsPerRoute,
+                                          @Value("${http.client.keep-alive}") Duration keepAlive,
+                                          @Value("${http.client.connect-timeout}") Duration connectTimeout,
+                                          @Value("${http.client.read-timeout}") Duration readTimeout) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .build();
+
+        //Content compression is enabled by default, so gzip and deflate responses are requested and decoded by the client
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Makes every {@link org.springframework.web.client.RestTemplate} built from the
+     * {@link org.springframework.boot.web.client.RestTemplateBuilder} use the shared HTTP client
+     */
+    @Bean
+    public RestTemplateCustomizer pooledHttpClientCustomizer(CloseableHttpClient httpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        return restTemplate -> restTemplate.setRequestFactory(requestFactory);
+    }
+}
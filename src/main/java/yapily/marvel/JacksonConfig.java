@@ -0,0 +1,69 @@
+package yapily.marvel;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import yapily.marvel.model.MarvelCharacter;
+
+import java.util.Set;
+
+/**
+ * Lets clients choose which properties of a {@link MarvelCharacter} are serialised. Every Jackson converter, JSON and the compact Smile
+ * and CBOR encodings clients can ask for in the Accept header, serialises Marvel Characters through the {@link #CHARACTER_FIELDS_FILTER},
+ * which keeps every property unless the response carries a projection built by {@link #projectCharacterFields(Object, Set)}.
+ */
+@Configuration
+public class JacksonConfig {
+    public static final String CHARACTER_FIELDS_FILTER = "characterFields";
+
+    /**
+     * Registers the filter on the ObjectMapper builder Spring Boot configures, rather than on the ObjectMapper it already built and
+     * shares with the rest of the application
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer characterFieldsCustomizer() {
+        return builder -> builder.mixIn(MarvelCharacter.class, CharacterFieldsMixin.class)
+                .filters(new SimpleFilterProvider().addFilter(CHARACTER_FIELDS_FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    //Spring MVC builds its default Smile and CBOR converters without Spring Boot's customizers, so these replace them with converters
+    // built from Spring Boot's builder, which is a new copy for every injection point
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Wraps a response so only some properties of the Marvel Characters it holds are serialised
+     *
+     * @param value  - the response, a Marvel Character or anything holding Marvel Characters
+     * @param fields - the names of the Marvel Character properties to serialise, or null or empty to serialise all of them
+     * @return - the response, with the projection the Jackson converters apply to it
+     */
+    public static MappingJacksonValue projectCharacterFields(Object value, Set<String> fields) {
+        MappingJacksonValue projection = new MappingJacksonValue(value);
+        if (fields != null && !fields.isEmpty()) {
+            projection.setFilters(new SimpleFilterProvider()
+                    .addFilter(CHARACTER_FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        }
+        return projection;
+    }
+
+    @JsonFilter(CHARACTER_FIELDS_FILTER)
+    private abstract static class CharacterFieldsMixin {
+    }
+}
@@ -0,0 +1,131 @@
+package yapily.marvel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import yapily.marvel.exceptions.TranslationRejectedException;
+import yapily.marvel.exceptions.TranslationUnavailableException;
+import yapily.marvel.model.MarvelCharacter;
+import yapily.marvel.service.HotCharacterTracker;
+import yapily.marvel.service.MarvelService;
+import yapily.marvel.service.TranslateService;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static yapily.marvel.service.MarvelServiceImpl.ENGLISH_LANGUAGE_CODE;
+
+/**
+ * Periodically translates the descriptions of the most requested Marvel Characters into the configured languages, so requests for them
+ * are served from the translations cache. The translations are sent to Yandex in the background lane of the rate limiter, so they only
+ * use the quota that requests don't. Right after a restart, the Characters that were the most requested before it are used until the
+ * new traffic has been counted.
+ */
+@Component
+public class TranslationPrewarmer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranslationPrewarmer.class);
+
+    private final MarvelService marvelService;
+    private final TranslateService translateService;
+    private final HotCharacterTracker hotCharacterTracker;
+    private final TaskScheduler taskScheduler;
+    private final String[] languages;
+    private final int topCharacters;
+    private final Duration interval;
+    private final Duration initialDelay;
+
+    public TranslationPrewarmer(MarvelService marvelService, TranslateService translateService, HotCharacterTracker hotCharacterTracker,
+                                TaskScheduler taskScheduler,
+                                @Value("${yandex.pretranslation.languages}") String[] languages,
+                                @Value("${yandex.pretranslation.top-characters}") int topCharacters,
+                                @Value("${yandex.pretranslation.interval}") Duration interval,
+                                @Value("${yandex.pretranslation.initial-delay}") Duration initialDelay) {
+        this.marvelService = marvelService;
+        this.translateService = translateService;
+        this.hotCharacterTracker = hotCharacterTracker;
+        this.taskScheduler = taskScheduler;
+        this.languages = languages;
+        this.topCharacters = topCharacters;
+        this.interval = interval;
+        this.initialDelay = initialDelay;
+    }
+
+    @PostConstruct
+    public void scheduleFirstPrewarm() {
+        if (languages.length == 0 || topCharacters <= 0) {
+            LOGGER.info("Pre-translation of the most requested Marvel Characters is disabled");
+            return;
+        }
+        taskScheduler.schedule(this::prewarm, Instant.now().plus(initialDelay));
+    }
+
+    /**
+     * Translates the descriptions of the most requested Characters into every configured language and schedules the next run, whether
+     * this one succeeded or not
+     */
+    public void prewarm() {
+        try {
+            List<Long> ids = getHottestIds();
+            hotCharacterTracker.save(ids);
+            hotCharacterTracker.decay();
+
+            List<String> descriptions = getDescriptions(ids);
+            if (descriptions.isEmpty()) {
+                return;
+            }
+
+            int translated = 0;
+            for (String language : languages) {
+                try {
+                    translated += translateService.pretranslate(descriptions, ENGLISH_LANGUAGE_CODE, language);
+                } catch (TranslationRejectedException e) {
+                    //A language Yandex doesn't support shouldn't stop the other languages from being pre-translated
+                    LOGGER.warn("Skipped pre-translating into {}: {}", language, e.getMessage());
+                }
+            }
+            LOGGER.info("Pre-translated {} descriptions of the {} most requested Marvel Characters", translated, ids.size());
+        } catch (TranslationUnavailableException e) {
+            //Yandex is failing or busy, so leave its quota to the requests until the next run
+            LOGGER.warn("Stopped pre-translating the most requested Marvel Characters: {}", e.getMessage());
+        } catch (Exception e) {
+            LOGGER.warn("Unable to pre-translate the most requested Marvel Characters", e);
+        } finally {
+            taskScheduler.schedule(this::prewarm, Instant.now().plus(interval));
+        }
+    }
+
+    /**
+     * Gets the most requested Characters, topped up with the ones saved before the last restart while the counts are still warming up
+     */
+    private List<Long> getHottestIds() {
+        Set<Long> ids = new LinkedHashSet<>(hotCharacterTracker.getHottest(topCharacters));
+        for (Long id : hotCharacterTracker.load()) {
+            if (ids.size() >= topCharacters) {
+                break;
+            }
+            ids.add(id);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Gets the descriptions of the Characters from the local mirror, so pre-translating never calls the Marvel API
+     */
+    private List<String> getDescriptions(List<Long> ids) {
+        List<String> descriptions = new ArrayList<>();
+        for (Long id : ids) {
+            MarvelCharacter character = marvelService.peekCharacter(id);
+            if (character != null && character.getDescription() != null && !character.getDescription().isEmpty()) {
+                descriptions.add(character.getDescription());
+            }
+        }
+        return descriptions;
+    }
+}
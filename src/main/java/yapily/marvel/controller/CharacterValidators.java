@@ -0,0 +1,99 @@
+package yapily.marvel.controller;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.model.CharacterResult;
+import yapily.marvel.model.MarvelCharacter;
+import yapily.marvel.service.CharacterMirror;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Derives the HTTP validators of the responses holding Marvel Characters or their IDs, so browsers and CDNs can revalidate them with
+ * conditional requests instead of downloading them again
+ */
+final class CharacterValidators {
+    private static final char SEPARATOR = '\u0000';
+
+    private CharacterValidators() {
+    }
+
+    /**
+     * Gets a strong ETag for a response. It is a hash of every property of the Characters, together with the requested fields and the
+     * Accept header, since those change the bytes of the response without changing the Characters.
+     *
+     * @param results - the Characters of the response, found or not
+     * @param fields  - the requested Character properties, or null if every property was requested
+     * @param accept  - the Accept header of the request, or null if there is none
+     * @return - the ETag, without quotes
+     */
+    static String getETag(List<CharacterResult> results, Set<String> fields, String accept) {
+        StringBuilder content = new StringBuilder();
+        for (CharacterResult result : results) {
+            append(content, result.getId());
+            append(content, result.getStatus());
+            MarvelCharacter character = result.getCharacter();
+            if (character != null) {
+                append(content, character.getName());
+                append(content, character.getDescription());
+                append(content, character.getModified());
+                append(content, character.isTranslationUnavailable());
+                if (character.getThumbnail() != null) {
+                    append(content, character.getThumbnail().getPath());
+                    append(content, character.getThumbnail().getExtension());
+                }
+            }
+        }
+        append(content, fields == null ? null : new TreeSet<>(fields));
+        append(content, accept);
+
+        return DigestUtils.sha256Hex(content.toString());
+    }
+
+    /**
+     * Gets a strong ETag for a response holding Marvel Character IDs. The same IDs are served as a JSON array, as pages and as a stream,
+     * so the ETag also covers the representation and the Accept header, and one representation is never revalidated with the ETag of
+     * another.
+     *
+     * @param characterIds   - the IDs the response was taken from
+     * @param representation - identifies the representation, including any paging parameters
+     * @param accept         - the Accept header of the request, or null if there is none
+     * @return - the ETag, without quotes
+     */
+    static String getIdsETag(CharacterIds characterIds, String representation, String accept) {
+        StringBuilder content = new StringBuilder();
+        append(content, characterIds.getVersion());
+        append(content, representation);
+        append(content, accept);
+
+        return DigestUtils.sha256Hex(content.toString());
+    }
+
+    /**
+     * Gets the Last-Modified date of a response holding a single Character, which is when the Character was last modified in the Marvel
+     * API. Responses holding several Characters only get an ETag: the latest modification of the Characters they hold doesn't change
+     * when a Character is added to or removed from them, so it cannot tell whether the response changed.
+     *
+     * @param character - the Character of the response
+     * @return - the date in milliseconds since the epoch, or -1 if it isn't known
+     */
+    static long getLastModified(MarvelCharacter character) {
+        OffsetDateTime modified = CharacterMirror.parseModified(character.getModified());
+        return modified == null ? -1 : modified.toInstant().toEpochMilli();
+    }
+
+    /**
+     * Checks whether a response holds a Character whose description couldn't be translated, which shouldn't be cached since the
+     * translation is likely to be available again soon
+     */
+    static boolean isDegraded(List<CharacterResult> results) {
+        return results.stream().anyMatch(result -> result.getCharacter() != null && result.getCharacter().isTranslationUnavailable());
+    }
+
+    private static void append(StringBuilder content, Object value) {
+        content.append(value).append(SEPARATOR);
+    }
+}
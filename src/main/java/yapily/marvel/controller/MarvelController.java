@@ -3,60 +3,311 @@ package yapily.marvel.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.swagger.annotations.*;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import yapily.marvel.exceptions.*;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.model.CharacterIdsPage;
+import yapily.marvel.model.CharacterResult;
 import yapily.marvel.model.MarvelCharacter;
 import yapily.marvel.service.MarvelService;
 
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static yapily.marvel.JacksonConfig.projectCharacterFields;
 
 @RestController
 @Api("Yapily Marvel Characters API")
 public class MarvelController {
     public static final String CHARACTERS = "/characters";
     public static final String CHARACTERS_ID = "/characters/{id}";
+    public static final String CHARACTERS_BATCH = "/characters/batch";
+    public static final String CHARACTERS_SEARCH = "/characters/search";
     public static final String ID = "id";
+    public static final String IDS = "ids";
+    public static final String LIMIT = "limit";
+    public static final String OFFSET = "offset";
+    public static final String AFTER = "after";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
     public static final String LANGUAGE = "language";
+    public static final String QUERY = "q";
+    public static final String FIELDS = "fields";
+    public static final String DEFAULT_SEARCH_LIMIT = "10";
+    //Identify the representations of the Character IDs in their ETags
+    private static final String IDS_ARRAY = "array";
+    private static final String IDS_PAGE = "page:";
+    private static final String IDS_NDJSON = "ndjson";
+    private static final String FIELDS_DESCRIPTION = "An optional comma separated list of the Marvel Character properties to return, " +
+            "such as id,name. Every property is returned by default";
     private final MarvelService marvelService;
+    private final int maxPageSize;
+    private final String idsCacheControl;
+    private final String characterCacheControl;
+    private final String searchCacheControl;
 
-    public MarvelController(MarvelService marvelService) {
+    public MarvelController(MarvelService marvelService, @Value("${marvel.ids.max-page-size}") int maxPageSize,
+                            @Value("${marvel.http.cache-control.ids}") String idsCacheControl,
+                            @Value("${marvel.http.cache-control.character}") String characterCacheControl,
+                            @Value("${marvel.http.cache-control.search}") String searchCacheControl) {
         this.marvelService = marvelService;
+        this.maxPageSize = maxPageSize;
+        this.idsCacheControl = idsCacheControl;
+        this.characterCacheControl = characterCacheControl;
+        this.searchCacheControl = searchCacheControl;
     }
 
     @GetMapping(CHARACTERS)
-    @ApiOperation(value = "Retrieves the list of all Marvel Character IDs", response = List.class)
+    @ApiOperation(value = "Retrieves the list of all Marvel Character IDs, in ascending order", response = List.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved all Marvel Character IDs"),
+            @ApiResponse(code = 304, message = "The Marvel Character IDs haven't changed since the ETag in If-None-Match"),
             @ApiResponse(code = 403, message = "Unable to retrieve the API key"),
             @ApiResponse(code = 404, message = "Unable to find the list of Marvel Characters")
     })
-    public List<Long> getCharacters() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException,
+    public CharacterIds getCharacters(WebRequest request, HttpServletResponse response) throws MarvelApiKeyNotFoundException,
+            UnableToProcessJsonException, MissingJsonNodeException, JsonProcessingException {
+        CharacterIds characterIds = marvelService.getCharactersIds();
+        if (checkIdsNotModified(characterIds, IDS_ARRAY, request, response)) {
+            return null;
+        }
+        return characterIds;
+    }
+
+    @GetMapping(value = CHARACTERS, params = {LIMIT, "!" + IDS})
+    @ApiOperation(value = "Retrieves a page of the Marvel Character IDs", response = CharacterIdsPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved the page of Marvel Character IDs"),
+            @ApiResponse(code = 304, message = "The Marvel Character IDs haven't changed since the ETag in If-None-Match"),
+            @ApiResponse(code = 400, message = "The limit is lower than 1"),
+            @ApiResponse(code = 403, message = "Unable to retrieve the API key")
+    })
+    public CharacterIdsPage getCharactersPage(@ApiParam(value = "The maximum number of Marvel Character IDs in the page", required = true)
+                                              @RequestParam(LIMIT) int limit,
+                                              @ApiParam(value = "The position of the first Marvel Character ID of the page")
+                                              @RequestParam(name = OFFSET, defaultValue = "0") int offset,
+                                              @ApiParam(value = "An optional cursor, the last Marvel Character ID of the previous page. " +
+                                                      "Takes precedence over the offset")
+                                              @RequestParam(name = AFTER, required = false) Long after,
+                                              WebRequest request, HttpServletResponse response)
+            throws InvalidPageSizeException, MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException,
             JsonProcessingException {
-        return marvelService.getCharactersIds();
+        if (limit < 1) {
+            throw new InvalidPageSizeException(limit);
+        }
+
+        CharacterIds characterIds = marvelService.getCharactersIds();
+        int start = after != null ? characterIds.indexAfter(after) : Math.max(offset, 0);
+        int pageSize = Math.min(limit, maxPageSize);
+        if (checkIdsNotModified(characterIds, IDS_PAGE + start + "," + pageSize, request, response)) {
+            return null;
+        }
+        return new CharacterIdsPage(characterIds, start, pageSize);
+    }
+
+    @GetMapping(value = CHARACTERS, produces = APPLICATION_NDJSON_VALUE)
+    @ApiOperation(value = "Streams all Marvel Character IDs as newline delimited JSON, one ID per line")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved all Marvel Character IDs"),
+            @ApiResponse(code = 304, message = "The Marvel Character IDs haven't changed since the ETag in If-None-Match"),
+            @ApiResponse(code = 403, message = "Unable to retrieve the API key")
+    })
+    public StreamingResponseBody streamCharacters(WebRequest request, HttpServletResponse response) throws MarvelApiKeyNotFoundException,
+            UnableToProcessJsonException, MissingJsonNodeException, JsonProcessingException {
+        CharacterIds characterIds = marvelService.getCharactersIds();
+        if (checkIdsNotModified(characterIds, IDS_NDJSON, request, response)) {
+            return null;
+        }
+        //The IDs are written straight from the cached snapshot, without being serialised into a JSON array first
+        return characterIds::writeNdjson;
+    }
+
+    @GetMapping(CHARACTERS_SEARCH)
+    @ApiOperation(value = "Searches the Marvel Characters by name, for autocompletion", response = MarvelCharacter.class,
+            responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully searched the Marvel Characters"),
+            @ApiResponse(code = 304, message = "The matching Marvel Characters haven't changed since the ETag in If-None-Match"),
+            @ApiResponse(code = 400, message = "The limit is lower than 1"),
+            @ApiResponse(code = 503, message = "The Marvel Characters are still being loaded")
+    })
+    public MappingJacksonValue searchCharacters(@ApiParam(value = "The start of the words of the Marvel Character name, ignoring case " +
+                                                        "and accents", required = true)
+                                                @RequestParam(QUERY) String query,
+                                                @ApiParam(value = "The maximum number of Marvel Characters to return")
+                                                @RequestParam(name = LIMIT, defaultValue = DEFAULT_SEARCH_LIMIT) int limit,
+                                                @ApiParam(value = FIELDS_DESCRIPTION)
+                                                @RequestParam(name = FIELDS, required = false) Set<String> fields,
+                                                WebRequest request, HttpServletResponse response)
+            throws InvalidPageSizeException, CharactersNotLoadedException {
+        if (limit < 1) {
+            throw new InvalidPageSizeException(limit);
+        }
+
+        List<MarvelCharacter> characters = marvelService.searchCharacters(query, Math.min(limit, maxPageSize));
+        List<CharacterResult> results = characters.stream().map(character -> CharacterResult.found(character.getId(), character))
+                .collect(Collectors.toList());
+        if (checkNotModified(results, fields, -1, searchCacheControl, request, response)) {
+            return null;
+        }
+        return projectCharacterFields(characters, fields);
     }
 
     @GetMapping(CHARACTERS_ID)
     @ApiOperation(value = "Retrieves a single Marvel Character", response = MarvelCharacter.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully fetched the Marvel Character"),
+            @ApiResponse(code = 304, message = "The Marvel Character hasn't changed since the ETag in If-None-Match or the " +
+                    "If-Modified-Since date"),
+            @ApiResponse(code = 400, message = "Yandex cannot translate the description into the requested language"),
             @ApiResponse(code = 403, message = "Unable to retrieve the API key"),
             @ApiResponse(code = 404, message = "Unable to find the specified Marvel Character")
     })
-    public MarvelCharacter getCharacter(@ApiParam(value = "The Marvel Character ID to fetch", required = true)
-                                        @PathVariable(ID) Long id,
-                                        @ApiParam(value = "An optional language code that can be used to automatically translate the " +
-                                                "Marvel Character description into the desirable language")
-                                        @RequestParam(name = LANGUAGE, required = false) String language)
+    public MappingJacksonValue getCharacter(@ApiParam(value = "The Marvel Character ID to fetch", required = true)
+                                            @PathVariable(ID) Long id,
+                                            @ApiParam(value = "An optional language code that can be used to automatically translate the " +
+                                                    "Marvel Character description into the desirable language")
+                                            @RequestParam(name = LANGUAGE, required = false) String language,
+                                            @ApiParam(value = FIELDS_DESCRIPTION)
+                                            @RequestParam(name = FIELDS, required = false) Set<String> fields,
+                                            WebRequest request, HttpServletResponse response)
             throws CharacterNotFoundException, MarvelApiKeyNotFoundException, YandexApiKeyNotFoundException, UnableToProcessJsonException
             , MissingJsonNodeException, JsonProcessingException {
 
+        MarvelCharacter character;
         if (StringUtils.isEmpty(language)) {
-            return marvelService.getCharacter(id);
+            character = marvelService.getCharacter(id);
         } else {
-            return marvelService.getTranslatedCharacter(id, language);
+            character = marvelService.getTranslatedCharacter(id, language);
+        }
+
+        if (checkNotModified(Collections.singletonList(CharacterResult.found(id, character)), fields,
+                CharacterValidators.getLastModified(character), characterCacheControl, request, response)) {
+            return null;
+        }
+        return projectCharacterFields(character, fields);
+    }
+
+    @GetMapping(value = CHARACTERS, params = IDS)
+    @ApiOperation(value = "Retrieves several Marvel Characters at once", response = CharacterResult.class, responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully looked up the Marvel Characters, including the ones that were not found"),
+            @ApiResponse(code = 304, message = "The Marvel Characters haven't changed since the ETag in If-None-Match"),
+            @ApiResponse(code = 400, message = "Too many Marvel Character IDs were requested, or one of them was empty"),
+            @ApiResponse(code = 403, message = "Unable to retrieve the API key")
+    })
+    public MappingJacksonValue getCharacters(@ApiParam(value = "A comma separated list of the Marvel Character IDs to fetch",
+                                                     required = true)
+                                             @RequestParam(IDS) List<Long> ids,
+                                             @ApiParam(value = "An optional language code that can be used to automatically translate " +
+                                                     "the Marvel Character descriptions into the desirable language")
+                                             @RequestParam(name = LANGUAGE, required = false) String language,
+                                             @ApiParam(value = FIELDS_DESCRIPTION)
+                                             @RequestParam(name = FIELDS, required = false) Set<String> fields,
+                                             WebRequest request, HttpServletResponse response)
+            throws TooManyCharacterIdsException, NullCharacterIdException, MarvelApiKeyNotFoundException, YandexApiKeyNotFoundException,
+            UnableToProcessJsonException, MissingJsonNodeException {
+        validateIds(ids);
+        List<CharacterResult> results = marvelService.getCharacters(ids, language);
+        if (checkNotModified(results, fields, -1, characterCacheControl, request, response)) {
+            return null;
+        }
+        return projectCharacterFields(results, fields);
+    }
+
+    @PostMapping(CHARACTERS_BATCH)
+    @ApiOperation(value = "Retrieves several Marvel Characters at once, for lists of IDs too long for a query string",
+            response = CharacterResult.class, responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully looked up the Marvel Characters, including the ones that were not found"),
+            @ApiResponse(code = 400, message = "Too many Marvel Character IDs were requested, or one of them was empty"),
+            @ApiResponse(code = 403, message = "Unable to retrieve the API key")
+    })
+    public MappingJacksonValue getCharactersBatch(@ApiParam(value = "The Marvel Character IDs to fetch", required = true)
+                                                  @RequestBody List<Long> ids,
+                                                  @ApiParam(value = "An optional language code that can be used to automatically " +
+                                                          "translate the Marvel Character descriptions into the desirable language")
+                                                  @RequestParam(name = LANGUAGE, required = false) String language,
+                                                  @ApiParam(value = FIELDS_DESCRIPTION)
+                                                  @RequestParam(name = FIELDS, required = false) Set<String> fields)
+            throws TooManyCharacterIdsException, NullCharacterIdException, MarvelApiKeyNotFoundException, YandexApiKeyNotFoundException,
+            UnableToProcessJsonException, MissingJsonNodeException {
+        validateIds(ids);
+        return projectCharacterFields(marvelService.getCharacters(ids, language), fields);
+    }
+
+    /**
+     * Checks the ids of a batch lookup before any of them is looked up. Lists longer than a page of ids are rejected straight away, so a
+     * huge request body is never deduplicated or handed to the service.
+     *
+     * @param ids - the ids of the Marvel Characters to fetch
+     * @throws TooManyCharacterIdsException - thrown if there are more ids than fit in a page
+     * @throws NullCharacterIdException     - thrown if any of the ids is null
+     */
+    private void validateIds(List<Long> ids) throws TooManyCharacterIdsException, NullCharacterIdException {
+        if (ids.size() > maxPageSize) {
+            throw new TooManyCharacterIdsException(ids.size(), maxPageSize);
+        }
+        for (Long id : ids) {
+            if (id == null) {
+                throw new NullCharacterIdException();
+            }
+        }
+    }
+
+    /**
+     * Sets the ETag and the Cache-Control header of a response holding Marvel Character IDs, and checks the ETag against the
+     * If-None-Match header of the request
+     *
+     * @return - true if the client already has the response, which is then answered with a 304
+     */
+    private boolean checkIdsNotModified(CharacterIds characterIds, String representation, WebRequest request,
+                                        HttpServletResponse response) {
+        //The ETag depends on the negotiated encoding, so shared caches must keep one copy per Accept header
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        setCacheControl(response, idsCacheControl);
+        return request.checkNotModified(CharacterValidators.getIdsETag(characterIds, representation,
+                request.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    /**
+     * Sets the validators and the Cache-Control header of a response holding Marvel Characters, and checks them against the conditional
+     * headers of the request. Responses with a description that couldn't be translated must be revalidated every time, so clients pick
+     * up the translation as soon as it is available again.
+     *
+     * @param lastModified - the Last-Modified date of the response in milliseconds since the epoch, or -1 to only send the ETag
+     * @return - true if the client already has the response, which is then answered with a 304
+     */
+    private static boolean checkNotModified(List<CharacterResult> results, Set<String> fields, long lastModified, String cacheControl,
+                                            WebRequest request, HttpServletResponse response) {
+        //The ETag depends on the negotiated encoding, so shared caches must keep one copy per Accept header
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String eTag = CharacterValidators.getETag(results, fields, request.getHeader(HttpHeaders.ACCEPT));
+        if (CharacterValidators.isDegraded(results)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+            return request.checkNotModified(eTag);
+        }
+
+        setCacheControl(response, cacheControl);
+        return request.checkNotModified(eTag, lastModified);
+    }
+
+    private static void setCacheControl(HttpServletResponse response, String cacheControl) {
+        if (!StringUtils.isEmpty(cacheControl)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
         }
     }
 }
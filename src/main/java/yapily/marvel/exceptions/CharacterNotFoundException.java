@@ -12,4 +12,8 @@ public class CharacterNotFoundException extends Exception {
     public CharacterNotFoundException(Long id, Exception e) {
         super("The Character with the id: " + id + " was not found", e);
     }
+
+    public CharacterNotFoundException(Long id) {
+        super("The Character with the id: " + id + " was not found");
+    }
 }
@@ -0,0 +1,16 @@
+package yapily.marvel.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the Marvel Characters are requested from the local mirror before it has been loaded, so an empty answer isn't
+ * mistaken for, and cached as, a real one
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CharactersNotLoadedException extends Exception {
+
+    public CharactersNotLoadedException() {
+        super("The Marvel Characters are still being loaded, please try again later");
+    }
+}
@@ -0,0 +1,15 @@
+package yapily.marvel.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a page of Character ids, or of search results, is requested with a limit that cannot hold a single one
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageSizeException extends Exception {
+
+    public InvalidPageSizeException(int limit) {
+        super("The limit of a page must be at least 1, but " + limit + " was requested");
+    }
+}
@@ -0,0 +1,15 @@
+package yapily.marvel.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a batch lookup asks for a Character without giving its id
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class NullCharacterIdException extends Exception {
+
+    public NullCharacterIdException() {
+        super("The Character ids to look up cannot be null");
+    }
+}
@@ -0,0 +1,15 @@
+package yapily.marvel.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a batch lookup asks for more Characters than allowed
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class TooManyCharacterIdsException extends Exception {
+
+    public TooManyCharacterIdsException(int requested, int maximum) {
+        super("Up to " + maximum + " Character ids can be requested at once, but " + requested + " were requested");
+    }
+}
@@ -0,0 +1,17 @@
+package yapily.marvel.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when Yandex refuses a translation, for instance because it doesn't support the language it was asked for. Yandex
+ * itself is fine, so this doesn't count as one of its failures. It is unchecked so it can go through the batcher that sends the
+ * translations to Yandex.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class TranslationRejectedException extends RuntimeException {
+
+    public TranslationRejectedException(String fromLanguageCode, String toLanguageCode, Exception e) {
+        super("Yandex refused to translate from " + fromLanguageCode + " to " + toLanguageCode, e);
+    }
+}
@@ -0,0 +1,16 @@
+package yapily.marvel.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a description cannot be translated in time, because Yandex is failing, slow or already busy with too many
+ * translations
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TranslationUnavailableException extends Exception {
+
+    public TranslationUnavailableException(String reason, Throwable e) {
+        super("The translation is unavailable since " + reason, e);
+    }
+}
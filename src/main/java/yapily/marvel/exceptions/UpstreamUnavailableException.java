@@ -0,0 +1,16 @@
+package yapily.marvel.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the Marvel or Yandex API keeps failing, or answers with an error other than not found. It is unchecked so it can
+ * go through the crawler and the other callbacks that wrap the calls to these APIs.
+ */
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String upstream, Exception e) {
+        super("The " + upstream + " API is unavailable, please try again later", e);
+    }
+}
@@ -0,0 +1,171 @@
+package yapily.marvel.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Defines an immutable snapshot of the IDs of all the Marvel Characters, together with a version that changes whenever the IDs do. The
+ * version is a SHA-256 digest of the IDs themselves, so every replica serving the same IDs reports the same version, and two different
+ * lists of IDs practically never do.
+ * <p>
+ * The IDs are kept sorted in a primitive array, which takes 8 bytes per id instead of a boxed {@link Long} and a list slot, and lets
+ * {@link #contains(long)} and {@link #indexAfter(long)} use a binary search.
+ */
+@JsonSerialize(using = CharacterIds.Serializer.class)
+public class CharacterIds {
+    private static final int BUFFER_SIZE = 8192;
+    //The longest id is 19 digits and a sign, followed by a new line
+    private static final int MAX_LINE_LENGTH = 21;
+
+    private final long[] ids;
+    private final String version;
+
+    public CharacterIds(List<Long> ids) {
+        this(ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public CharacterIds(long[] ids) {
+        this.ids = ids.clone();
+        Arrays.sort(this.ids);
+        this.version = digest(this.ids);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Gets the id at a given position
+     *
+     * @param index - the position of the id, in ascending order of the IDs
+     * @return - the id
+     */
+    public long get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Checks whether an id is part of the snapshot
+     *
+     * @param id - the id to look for
+     * @return - true if the id is one of the IDs
+     */
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     * Gets the position of the first id greater than a given id, which is where the page after a cursor starts. The id doesn't need to be
+     * part of the snapshot, so a cursor stays valid when its id is removed by a refresh.
+     *
+     * @param id - the last id of the previous page
+     * @return - the position of the first id greater than the given one
+     */
+    public int indexAfter(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Gets a page of the IDs
+     *
+     * @param offset - the position of the first id of the page
+     * @param limit  - the maximum number of ids in the page
+     * @return - the IDs of the page, empty if the offset is past the last id
+     */
+    public long[] slice(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), ids.length);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), ids.length);
+        return Arrays.copyOfRange(ids, from, to);
+    }
+
+    /**
+     * Gets a copy of all the IDs
+     *
+     * @return - the IDs, in ascending order
+     */
+    public long[] toArray() {
+        return ids.clone();
+    }
+
+    /**
+     * Writes the IDs as newline delimited JSON, one id per line, straight into the output stream
+     *
+     * @param outputStream - the stream to write to
+     * @throws IOException - thrown if the IDs cannot be written to the stream
+     */
+    public void writeNdjson(OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int position = 0;
+        for (long id : ids) {
+            if (position > BUFFER_SIZE - MAX_LINE_LENGTH) {
+                outputStream.write(buffer, 0, position);
+                position = 0;
+            }
+            position = writeDigits(id, buffer, position);
+            buffer[position++] = '\n';
+        }
+        outputStream.write(buffer, 0, position);
+        outputStream.flush();
+    }
+
+    private static String digest(long[] ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(ids.length * Long.BYTES);
+        buffer.asLongBuffer().put(ids);
+        return DigestUtils.sha256Hex(buffer.array());
+    }
+
+    private static int writeDigits(long value, byte[] buffer, int position) {
+        //Marvel Character IDs are positive, so the rare negative one isn't worth a fast path
+        if (value < 0) {
+            byte[] digits = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(digits, 0, buffer, position, digits.length);
+            return position + digits.length;
+        }
+
+        int end = position + digitCount(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the IDs as a JSON array straight from the primitive array, without boxing them
+     */
+    public static class Serializer extends StdSerializer<CharacterIds> {
+
+        public Serializer() {
+            super(CharacterIds.class);
+        }
+
+        @Override
+        public void serialize(CharacterIds characterIds, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeArray(characterIds.ids, 0, characterIds.ids.length);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package yapily.marvel.model;
+
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Defines a single page of the Marvel Character IDs served by this API
+ */
+public class CharacterIdsPage {
+    @ApiModelProperty(notes = "The version of the IDs the page was taken from")
+    private final String version;
+    @ApiModelProperty(notes = "The total number of Marvel Character IDs")
+    private final int total;
+    @ApiModelProperty(notes = "The position of the first id of the page")
+    private final int offset;
+    @ApiModelProperty(notes = "The Marvel Character IDs of the page")
+    private final long[] ids;
+    @ApiModelProperty(notes = "The offset of the next page, or null if this is the last page")
+    private final Integer next;
+
+    public CharacterIdsPage(CharacterIds characterIds, int offset, int limit) {
+        if (limit < 1) {
+            //An empty page would have no next page, which clients would take for the end of the IDs
+            throw new IllegalArgumentException("The limit of a page must be at least 1, but was " + limit);
+        }
+        this.version = characterIds.getVersion();
+        this.total = characterIds.size();
+        this.offset = offset;
+        this.ids = characterIds.slice(offset, limit);
+        this.next = ids.length == 0 || offset + ids.length >= total ? null : offset + ids.length;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public long[] getIds() {
+        return ids;
+    }
+
+    public Integer getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,51 @@
+package yapily.marvel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Defines the result of looking up a single Marvel Character as part of a batch
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CharacterResult {
+    @ApiModelProperty(notes = "The requested Marvel Character ID")
+    private final Long id;
+    @ApiModelProperty(notes = "Whether the Marvel Character was found, or couldn't be looked up because the Marvel API was unavailable")
+    private final Status status;
+    @ApiModelProperty(notes = "The Marvel Character, only present if it was found")
+    private final MarvelCharacter character;
+
+    private CharacterResult(Long id, Status status, MarvelCharacter character) {
+        this.id = id;
+        this.status = status;
+        this.character = character;
+    }
+
+    public static CharacterResult found(Long id, MarvelCharacter character) {
+        return new CharacterResult(id, Status.FOUND, character);
+    }
+
+    public static CharacterResult notFound(Long id) {
+        return new CharacterResult(id, Status.NOT_FOUND, null);
+    }
+
+    public static CharacterResult unavailable(Long id) {
+        return new CharacterResult(id, Status.UNAVAILABLE, null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public MarvelCharacter getCharacter() {
+        return character;
+    }
+
+    public enum Status {
+        FOUND, NOT_FOUND, UNAVAILABLE
+    }
+}
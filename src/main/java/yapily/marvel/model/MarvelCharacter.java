@@ -1,19 +1,24 @@
 package yapily.marvel.model;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.MissingNode;
-import com.google.common.annotations.VisibleForTesting;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import io.swagger.annotations.ApiModelProperty;
 import yapily.marvel.exceptions.MissingJsonNodeException;
 import yapily.marvel.exceptions.UnableToProcessJsonException;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
- * Defines a Marvel Character and its properties
+ * Defines a Marvel Character and its properties. A Marvel Character is immutable, so the same instance can be shared by the caches, the
+ * local mirror and every request. A translation is a separate view of the Character, created with {@link #translated(String)}, which
+ * only replaces the description and shares everything else with the English Character.
  */
 public class MarvelCharacter {
     @ApiModelProperty(notes = "The Marvel Character ID")
@@ -21,23 +26,44 @@ public class MarvelCharacter {
     @ApiModelProperty(notes = "The Marvel Character name")
     private final String name;
     @ApiModelProperty(notes = "The Marvel Character description")
-    private String description;
+    private final String description;
     private final Thumbnail thumbnail;
+    //Only used to sync the local mirror and to send the Last-Modified header, it isn't part of the serialised Character
+    @JsonIgnore
+    private final String modified;
+    @ApiModelProperty(notes = "Only present, and true, if the description could not be translated and is in English instead")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private final boolean translationUnavailable;
 
     private static final String ID = "id";
     private static final String NAME = "name";
     private static final String DESCRIPTION = "description";
     private static final String THUMBNAIL = "thumbnail";
+    private static final String MODIFIED = "modified";
     private static final String EXTENSION = "extension";
     private static final String PATH = "path";
     private static final String DATA = "data";
     private static final String RESULTS = "results";
+    private static final String TOTAL = "total";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     public MarvelCharacter(Long id, String name, String description, Thumbnail thumbnail) {
+        this(id, name, description, thumbnail, null);
+    }
+
+    public MarvelCharacter(Long id, String name, String description, Thumbnail thumbnail, String modified) {
+        this(id, name, description, thumbnail, modified, false);
+    }
+
+    public MarvelCharacter(Long id, String name, String description, Thumbnail thumbnail, String modified,
+                           boolean translationUnavailable) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.thumbnail = thumbnail;
+        this.modified = modified;
+        this.translationUnavailable = translationUnavailable;
     }
 
     public Long getId() {
@@ -56,8 +82,32 @@ public class MarvelCharacter {
         return thumbnail;
     }
 
-    public void setTranslatedDescription(String translatedDescription) {
-        this.description = translatedDescription;
+    public String getModified() {
+        return modified;
+    }
+
+    public boolean isTranslationUnavailable() {
+        return translationUnavailable;
+    }
+
+    /**
+     * Creates a view of this Character with its description translated. This Character is left untouched.
+     *
+     * @param translatedDescription - the translated description
+     * @return - a Character sharing everything with this one but the description
+     */
+    public MarvelCharacter translated(String translatedDescription) {
+        return new MarvelCharacter(id, name, translatedDescription, thumbnail, modified);
+    }
+
+    /**
+     * Creates a view of this Character flagged as having its description left in English, since it could not be translated. This
+     * Character is left untouched.
+     *
+     * @return - a Character sharing everything with this one, flagged as untranslated
+     */
+    public MarvelCharacter untranslated() {
+        return new MarvelCharacter(id, name, description, thumbnail, modified, true);
     }
 
     /**
@@ -68,58 +118,161 @@ public class MarvelCharacter {
      * @throws UnableToProcessJsonException - this Exception will be thrown if there is any problem unmarshalling the json String
      */
     public static List<MarvelCharacter> getCharactersFromJson(String json) throws UnableToProcessJsonException, MissingJsonNodeException {
-        JsonNode results;
-        try {
-            results = getJsonResults(json);
-        } catch (JsonProcessingException e) {
-            throw new UnableToProcessJsonException(e);
-        }
+        return getCharactersPageFromJson(json).getResults();
+    }
 
+    /**
+     * Given a json composed by an array of characters, parses it into a {@link MarvelPage} holding the characters of that page and the
+     * total number of characters available in the Marvel API
+     *
+     * @param json - the json to unmarshal
+     * @return - a {@link MarvelPage} of {@link MarvelCharacter}
+     * @throws UnableToProcessJsonException - this Exception will be thrown if there is any problem unmarshalling the json String
+     */
+    public static MarvelPage<MarvelCharacter> getCharactersPageFromJson(String json) throws UnableToProcessJsonException,
+            MissingJsonNodeException {
         List<MarvelCharacter> marvelCharacters = new ArrayList<>();
+        int total = readCharactersFromJson(json, marvelCharacters::add);
 
-        for (JsonNode result : results) {
-            marvelCharacters.add(getCharacterFromJson(result));
-        }
+        return new MarvelPage<>(total, marvelCharacters);
+    }
 
-        return marvelCharacters;
+    /**
+     * Streams through a json composed by an array of characters, handing each {@link MarvelCharacter} to the consumer as soon as it
+     * has been read. Only the properties of a {@link MarvelCharacter} are read, every other subtree (comics, series, stories, etc) is
+     * skipped without being materialised. Characters without a numeric id are skipped, since they cannot be looked up or mirrored.
+     *
+     * @param json     - the json to unmarshal
+     * @param consumer - receives each {@link MarvelCharacter} in the order they appear in the json
+     * @return - the total number of characters available in the Marvel API, or the number of characters read if it is not present
+     * @throws UnableToProcessJsonException - this Exception will be thrown if there is any problem unmarshalling the json String
+     * @throws MissingJsonNodeException     - this Exception will be thrown if the "data" or "results" node cannot be found
+     */
+    public static int readCharactersFromJson(String json, Consumer<MarvelCharacter> consumer) throws UnableToProcessJsonException,
+            MissingJsonNodeException {
+        return parseResults(json, consumer);
     }
 
     /**
-     * The Json that is returned by the Marvel API consists of properties and a "data" which contains the results. This method will
-     * return that
+     * Walks the root object of a Marvel API json response, reading the "data" / "total" value and every Marvel Character of the
+     * "data" / "results" array
      *
-     * @param json - the json to process
-     * @return - A {@link JsonNode} containing the array of json objects where the Marvel characters will be
-     * @throws JsonProcessingException - this Exception will be thrown if there is any problem unmarshalling the json String
+     * @param json     - the json to process
+     * @param consumer - receives each {@link MarvelCharacter} in the order they appear in the json
+     * @return - the total number of characters available in the Marvel API, or the number of characters read if it is not present
      */
-    @VisibleForTesting
-    protected static JsonNode getJsonResults(String json) throws JsonProcessingException, MissingJsonNodeException {
-        ObjectMapper objectMapper = new ObjectMapper();
+    private static int parseResults(String json, Consumer<MarvelCharacter> consumer) throws UnableToProcessJsonException,
+            MissingJsonNodeException {
+        int total = -1;
+        int count = 0;
+        boolean foundResults = false;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MissingJsonNodeException();
+            }
 
-        JsonNode rootNode = objectMapper.readTree(json);
-        JsonNode path = rootNode.path(DATA).path(RESULTS);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT || !DATA.equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
 
-        if (path instanceof MissingNode) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String dataField = parser.getCurrentName();
+                    JsonToken dataValue = parser.nextToken();
+
+                    if (TOTAL.equals(dataField) && dataValue == JsonToken.VALUE_NUMBER_INT) {
+                        total = parser.getIntValue();
+                    } else if (RESULTS.equals(dataField) && dataValue == JsonToken.START_ARRAY) {
+                        foundResults = true;
+                        JsonToken token;
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                            if (token != JsonToken.START_OBJECT) {
+                                throw new JsonParseException(parser, "Expected a Marvel Character object but found " + token);
+                            }
+                            MarvelCharacter character = readCharacter(parser);
+                            if (character.getId() != null) {
+                                consumer.accept(character);
+                                count++;
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UnableToProcessJsonException(e);
+        }
+
+        if (!foundResults) {
             throw new MissingJsonNodeException();
         }
 
-        return path;
+        return total < 0 ? count : total;
     }
 
-
     /**
      * Creates a {@link MarvelCharacter} from json
      *
-     * @param result - the json node containing the character
-     * @return - A {@link MarvelCharacter}
+     * @param parser - the parser positioned at the START_OBJECT token of the character
+     * @return - A {@link MarvelCharacter}, with a null id if the json doesn't hold a numeric one
      */
-    private static MarvelCharacter getCharacterFromJson(JsonNode result) {
-        return new MarvelCharacter(
-                result.get(ID).asLong(),
-                result.get(NAME).asText(),
-                result.get(DESCRIPTION).asText(),
-                new Thumbnail(result.get(THUMBNAIL).get(PATH).asText(),
-                        result.get(THUMBNAIL).get(EXTENSION).asText()));
+    private static MarvelCharacter readCharacter(JsonParser parser) throws IOException {
+        Long id = null;
+        String name = null;
+        String description = null;
+        Thumbnail thumbnail = null;
+        String modified = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if (ID.equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                id = parser.getLongValue();
+            } else if (NAME.equals(field)) {
+                name = parser.getValueAsString();
+            } else if (DESCRIPTION.equals(field)) {
+                description = parser.getValueAsString();
+            } else if (THUMBNAIL.equals(field) && value == JsonToken.START_OBJECT) {
+                thumbnail = readThumbnail(parser);
+            } else if (MODIFIED.equals(field)) {
+                modified = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return new MarvelCharacter(id, name, description, thumbnail, modified);
+    }
+
+    /**
+     * Creates a {@link Thumbnail} from json
+     *
+     * @param parser - the parser positioned at the START_OBJECT token of the thumbnail
+     * @return - A {@link Thumbnail}
+     */
+    private static Thumbnail readThumbnail(JsonParser parser) throws IOException {
+        String path = null;
+        String extension = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if (PATH.equals(field)) {
+                path = parser.getValueAsString();
+            } else if (EXTENSION.equals(field)) {
+                extension = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return new Thumbnail(path, extension);
     }
 
     /**
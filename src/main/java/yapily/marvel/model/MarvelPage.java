@@ -0,0 +1,26 @@
+package yapily.marvel.model;
+
+import java.util.List;
+
+/**
+ * Defines a single page of results returned by the Marvel API, together with the total number of results available upstream
+ *
+ * @param <T> - the type of the results in the page
+ */
+public class MarvelPage<T> {
+    private final int total;
+    private final List<T> results;
+
+    public MarvelPage(int total, List<T> results) {
+        this.total = total;
+        this.results = results;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public List<T> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,202 @@
+package yapily.marvel.service;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
+import yapily.marvel.exceptions.YandexApiKeyNotFoundException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Provides the Marvel and Yandex API keys. The api key file is only read when the application starts and whenever it changes on disk,
+ * instead of on every call to the Marvel or Yandex APIs.
+ */
+@Component
+public class ApiKeyProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiKeyProvider.class);
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final String apiKeysLocation;
+    private final String marvelPublicKey;
+    private final String marvelPrivateKey;
+    private final String yandexKey;
+
+    private volatile ApiKeys apiKeys;
+    private volatile Exception loadError;
+    private WatchService watchService;
+
+    public ApiKeyProvider(@Value("${api.keys.location}") String apiKeysLocation,
+                          @Value("${marvel.key.public}") String marvelPublicKey,
+                          @Value("${marvel.key.private}") String marvelPrivateKey,
+                          @Value("${yandex.key}") String yandexKey) {
+        this.apiKeysLocation = apiKeysLocation;
+        this.marvelPublicKey = marvelPublicKey;
+        this.marvelPrivateKey = marvelPrivateKey;
+        this.yandexKey = yandexKey;
+        reload();
+    }
+
+    /**
+     * Gets the necessary attributes to make a call to the Marvel API. This includes a timestamp an apikey and a md5hash of these
+     *
+     * @return - the API URI, starting with "?"
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     */
+    public String getMarvelApiUri() throws MarvelApiKeyNotFoundException {
+        ApiKeys keys = apiKeys;
+        if (keys == null || keys.marvelSecret == null) {
+            throw new MarvelApiKeyNotFoundException(apiKeysLocation, getLoadError());
+        }
+
+        String timestamp = Long.toString(System.currentTimeMillis());
+
+        MessageDigest md5 = MD5.get();
+        md5.update(timestamp.getBytes(StandardCharsets.US_ASCII));
+        byte[] hash = md5.digest(keys.marvelSecret);
+
+        StringBuilder apiUri = new StringBuilder(keys.apiKeyParameter.length() + timestamp.length() + 40);
+        apiUri.append("?ts=").append(timestamp).append(keys.apiKeyParameter).append("&hash=");
+        for (byte b : hash) {
+            apiUri.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+        }
+
+        return apiUri.toString();
+    }
+
+    /**
+     * Gets the Yandex API key
+     *
+     * @return - the Yandex API key
+     * @throws YandexApiKeyNotFoundException - thrown if the Yandex API key cannot be located
+     */
+    public String getYandexApiKey() throws YandexApiKeyNotFoundException {
+        ApiKeys keys = apiKeys;
+        if (keys == null || keys.yandexKey == null) {
+            throw new YandexApiKeyNotFoundException(apiKeysLocation, getLoadError());
+        }
+
+        return keys.yandexKey;
+    }
+
+    /**
+     * Reads the api key file again. If it cannot be read, or any of the keys is missing or blank, the keys that were previously loaded
+     * are kept. The file is reloaded as soon as it changes, so it can be read while an editor or a copy is still writing it.
+     */
+    public void reload() {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(Paths.get(apiKeysLocation))) {
+            properties.load(inputStream);
+        } catch (IOException | RuntimeException e) {
+            loadError = e;
+            LOGGER.warn("Unable to load the api keys from {}", apiKeysLocation, e);
+            return;
+        }
+
+        for (String key : new String[]{marvelPublicKey, marvelPrivateKey, yandexKey}) {
+            if (StringUtils.isBlank(properties.getProperty(key))) {
+                loadError = new IllegalStateException("The " + key + " key is missing from " + apiKeysLocation);
+                LOGGER.warn("Keeping the previous api keys since the {} key is missing from {}", key, apiKeysLocation);
+                return;
+            }
+        }
+
+        apiKeys = new ApiKeys(properties.getProperty(marvelPublicKey), properties.getProperty(marvelPrivateKey),
+                properties.getProperty(yandexKey));
+        loadError = null;
+    }
+
+    @PostConstruct
+    public void watch() {
+        Path file = Paths.get(apiKeysLocation).toAbsolutePath();
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            LOGGER.warn("Not watching {} for changes since its directory does not exist", file);
+            return;
+        }
+
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to watch {} for changes", file, e);
+            return;
+        }
+
+        Thread watcher = new Thread(() -> watchForChanges(watchService, file.getFileName()), "api-key-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void stopWatching() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watchForChanges(WatchService watchService, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        LOGGER.info("Reloading the api keys since {} changed", fileName);
+                        reload();
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            //The application is shutting down
+        }
+    }
+
+    private Exception getLoadError() {
+        Exception error = loadError;
+        return error != null ? error : new IllegalStateException("The api key is missing from " + apiKeysLocation);
+    }
+
+    /**
+     * The keys loaded from the api key file, with the parts of the Marvel API URI that don't change between calls precomputed
+     */
+    private static class ApiKeys {
+        private final String apiKeyParameter;
+        private final byte[] marvelSecret;
+        private final String yandexKey;
+
+        ApiKeys(String marvelPublicKey, String marvelPrivateKey, String yandexKey) {
+            this.apiKeyParameter = "&apikey=" + marvelPublicKey;
+            //The Marvel API hash is md5(ts + privateKey + publicKey), so everything after the timestamp is the same for every call
+            this.marvelSecret = marvelPublicKey == null || marvelPrivateKey == null ? null :
+                    (marvelPrivateKey + marvelPublicKey).getBytes(StandardCharsets.UTF_8);
+            this.yandexKey = yandexKey;
+        }
+    }
+}
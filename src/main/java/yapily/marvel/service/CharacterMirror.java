@@ -0,0 +1,136 @@
+package yapily.marvel.service;
+
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.model.MarvelCharacter;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a local copy of every Marvel Character, so lookups can be answered without calling the Marvel API. After a full load, the
+ * mirror only needs the Characters modified since {@link #getModifiedSince()} to stay up to date. A {@link CharacterNameIndex} of the
+ * mirrored Characters is rebuilt after every change, so name searches always reflect the latest sync.
+ */
+public class CharacterMirror {
+    private static final DateTimeFormatter MODIFIED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
+
+    private volatile Map<Long, MarvelCharacter> characters = new ConcurrentHashMap<>();
+    private volatile OffsetDateTime lastModified;
+    private volatile boolean loaded;
+    private volatile CharacterNameIndex nameIndex = CharacterNameIndex.empty();
+
+    /**
+     * Replaces every Character in the mirror, which also drops the Characters that no longer exist in the Marvel API
+     *
+     * @param marvelCharacters - all the Marvel Characters
+     */
+    public void replaceAll(Collection<MarvelCharacter> marvelCharacters) {
+        Map<Long, MarvelCharacter> replacement = new ConcurrentHashMap<>(Math.max(16, marvelCharacters.size() * 2));
+        OffsetDateTime latest = null;
+        for (MarvelCharacter character : marvelCharacters) {
+            replacement.put(character.getId(), character);
+            latest = latest(latest, character);
+        }
+
+        characters = replacement;
+        nameIndex = new CharacterNameIndex(replacement.values());
+        lastModified = latest;
+        loaded = true;
+    }
+
+    /**
+     * Adds or replaces the Characters that were modified since the last sync
+     *
+     * @param marvelCharacters - the modified Marvel Characters
+     */
+    public void putAll(Collection<MarvelCharacter> marvelCharacters) {
+        Map<Long, MarvelCharacter> current = characters;
+        OffsetDateTime latest = lastModified;
+        for (MarvelCharacter character : marvelCharacters) {
+            current.put(character.getId(), character);
+            latest = latest(latest, character);
+        }
+        if (!marvelCharacters.isEmpty()) {
+            nameIndex = new CharacterNameIndex(current.values());
+        }
+        lastModified = latest;
+    }
+
+    /**
+     * Gets a Character from the mirror
+     *
+     * @param id - the id of the Marvel Character
+     * @return - the {@link MarvelCharacter}, or null if it isn't in the mirror
+     */
+    public MarvelCharacter get(Long id) {
+        return characters.get(id);
+    }
+
+    /**
+     * Finds the mirrored Characters whose name matches a query
+     *
+     * @param query - the words the Character name should contain, or start with
+     * @param limit - the maximum number of Characters to return
+     * @return - the matching Characters, the best matches first
+     */
+    public List<MarvelCharacter> search(String query, int limit) {
+        return nameIndex.search(query, limit);
+    }
+
+    public Collection<MarvelCharacter> getCharacters() {
+        return characters.values();
+    }
+
+    public CharacterIds getIds() {
+        return new CharacterIds(characters.keySet().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public int size() {
+        return characters.size();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the date to ask the Marvel API for modified Characters from. It is the day before the latest modification seen, since the
+     * Marvel API timestamps carry a timezone offset, and fetching a few Characters twice is harmless.
+     *
+     * @return - the date, formatted as yyyy-MM-dd, or null if no modification date is known
+     */
+    public String getModifiedSince() {
+        OffsetDateTime latest = lastModified;
+        if (latest == null) {
+            return null;
+        }
+        return latest.toLocalDate().minusDays(1).format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    private static OffsetDateTime latest(OffsetDateTime latest, MarvelCharacter character) {
+        OffsetDateTime modified = parseModified(character.getModified());
+        if (modified == null) {
+            return latest;
+        }
+        return latest == null || modified.isAfter(latest) ? modified : latest;
+    }
+
+    /**
+     * Parses the modified timestamp of a Character. Some Characters carry placeholder dates the formatter can't read, those are ignored.
+     */
+    public static OffsetDateTime parseModified(String modified) {
+        if (modified == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(modified, MODIFIED_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package yapily.marvel.service;
+
+import yapily.marvel.model.MarvelCharacter;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable index of the Marvel Character names for prefix searches. Names are folded to lower case without accents and split into
+ * words, and every word is kept in a sorted array, so the Characters with a word starting with a prefix are found with two binary
+ * searches. A query matches a Character when each of its words is the start of a word of the Character name, so "spi man" finds
+ * "Spider-Man (Ultimate)".
+ */
+public class CharacterNameIndex {
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final CharacterNameIndex EMPTY = new CharacterNameIndex(Collections.emptyList());
+
+    private final MarvelCharacter[] characters;
+    //The folded words of each name joined by single spaces, which the matches are ranked by
+    private final String[] normalisedNames;
+    private final String[][] nameWords;
+    private final String[] words;
+    private final int[] owners;
+
+    /**
+     * @param marvelCharacters - the Characters to index. Characters without a name are left out
+     */
+    public CharacterNameIndex(Collection<MarvelCharacter> marvelCharacters) {
+        List<MarvelCharacter> named = new ArrayList<>(marvelCharacters.size());
+        for (MarvelCharacter character : marvelCharacters) {
+            if (character.getName() != null) {
+                named.add(character);
+            }
+        }
+
+        characters = named.toArray(new MarvelCharacter[0]);
+        normalisedNames = new String[characters.length];
+        nameWords = new String[characters.length][];
+        List<WordEntry> entries = new ArrayList<>();
+        for (int i = 0; i < characters.length; i++) {
+            nameWords[i] = split(fold(characters[i].getName()));
+            normalisedNames[i] = String.join(" ", nameWords[i]);
+            for (String word : nameWords[i]) {
+                entries.add(new WordEntry(word, i));
+            }
+        }
+
+        entries.sort(Comparator.comparing((WordEntry entry) -> entry.word).thenComparingInt(entry -> entry.owner));
+        words = new String[entries.size()];
+        owners = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            words[i] = entries.get(i).word;
+            owners[i] = entries.get(i).owner;
+        }
+    }
+
+    public static CharacterNameIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Finds the Characters whose name matches a query. Names starting with the query come first, then shorter names, then names in
+     * alphabetical order.
+     *
+     * @param query - the words the Character name should contain, or start with
+     * @param limit - the maximum number of Characters to return
+     * @return - the matching Characters, the best matches first
+     */
+    public List<MarvelCharacter> search(String query, int limit) {
+        if (query == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String[] queryWords = split(fold(query));
+        if (queryWords.length == 0) {
+            return Collections.emptyList();
+        }
+
+        //Only the Characters with a word starting with the longest query word can match, which is usually the narrowest range
+        String narrowestWord = queryWords[0];
+        for (String queryWord : queryWords) {
+            if (queryWord.length() > narrowestWord.length()) {
+                narrowestWord = queryWord;
+            }
+        }
+
+        int from = lowerBound(narrowestWord);
+        int to = upperBound(narrowestWord, from);
+        boolean[] seen = new boolean[characters.length];
+        List<Integer> matches = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            int owner = owners[i];
+            if (!seen[owner]) {
+                seen[owner] = true;
+                if (matchesAll(nameWords[owner], queryWords)) {
+                    matches.add(owner);
+                }
+            }
+        }
+
+        String normalisedQuery = String.join(" ", queryWords);
+        matches.sort(Comparator.comparing((Integer owner) -> !normalisedNames[owner].startsWith(normalisedQuery))
+                .thenComparingInt(owner -> normalisedNames[owner].length())
+                .thenComparing(owner -> normalisedNames[owner]));
+
+        List<MarvelCharacter> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            results.add(characters[matches.get(i)]);
+        }
+        return results;
+    }
+
+    public int size() {
+        return characters.length;
+    }
+
+    /**
+     * Folds a name or a query to lower case, without accents, so "Namor" and "NÁMOR" are searched for the same way
+     */
+    private static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return ACCENTS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] split(String foldedText) {
+        return Arrays.stream(SEPARATORS.split(foldedText)).filter(word -> !word.isEmpty()).toArray(String[]::new);
+    }
+
+    private static boolean matchesAll(String[] nameWords, String[] queryWords) {
+        for (String queryWord : queryWords) {
+            boolean found = false;
+            for (String nameWord : nameWords) {
+                if (nameWord.startsWith(queryWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first word that is not before the prefix
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (words[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first word, from the lower bound, that doesn't start with the prefix
+     */
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = words.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (words[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static class WordEntry {
+        private final String word;
+        private final int owner;
+
+        WordEntry(String word, int owner) {
+            this.word = word;
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package yapily.marvel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import yapily.marvel.model.MarvelCharacter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves the local mirror of the Marvel Characters to disk, so a restarted application can serve them straight away instead of crawling
+ * the whole catalogue again.
+ * <p>
+ * The snapshot is a versioned binary file: a magic number, the format version, when it was written and the number of Characters,
+ * followed by the Characters themselves and a CRC32 of everything before it. It is written to a temporary file that then replaces the
+ * previous snapshot, so a crash while saving never leaves a truncated snapshot behind.
+ */
+@Component
+public class CharacterSnapshotStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CharacterSnapshotStore.class);
+    private static final int MAGIC = 0x4d434853;
+    private static final int FORMAT_VERSION = 1;
+    private static final int NULL_LENGTH = -1;
+    //Far longer than any Marvel Character property, but short enough that a corrupted length cannot exhaust the heap before the
+    // checksum is verified
+    private static final int MAX_STRING_LENGTH = 1 << 20;
+
+    private final Path location;
+
+    public CharacterSnapshotStore(@Value("${marvel.snapshot.location}") String location) {
+        this.location = location.isEmpty() ? null : Paths.get(location);
+    }
+
+    /**
+     * Saves the Characters, replacing the previous snapshot. Failures are logged rather than thrown, since the snapshot only speeds up
+     * the next start.
+     *
+     * @param characters - all the Marvel Characters
+     */
+    public void save(Collection<MarvelCharacter> characters) {
+        if (location == null) {
+            return;
+        }
+
+        try {
+            Path directory = location.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, location.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                    write(characters, outputStream);
+                }
+                Files.move(temporaryFile, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+            LOGGER.info("Saved {} Marvel Characters to {}", characters.size(), location);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to save the Marvel Characters to {}", location, e);
+        }
+    }
+
+    /**
+     * Loads the Characters saved by the last call to {@link #save(Collection)}
+     *
+     * @return - the Marvel Characters, or null if there is no snapshot or it cannot be read
+     */
+    public List<MarvelCharacter> load() {
+        if (location == null || !Files.isRegularFile(location)) {
+            return null;
+        }
+
+        try (InputStream inputStream = Files.newInputStream(location)) {
+            return read(inputStream);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring the Marvel Characters snapshot at {} since it cannot be read", location, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the Characters in the snapshot format
+     *
+     * @param characters   - the Marvel Characters to write
+     * @param outputStream - the stream to write to
+     * @throws IOException - thrown if the Characters cannot be written to the stream
+     */
+    static void write(Collection<MarvelCharacter> characters, OutputStream outputStream) throws IOException {
+        CRC32 checksum = new CRC32();
+        DataOutputStream output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(outputStream), checksum));
+
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeLong(System.currentTimeMillis());
+        output.writeInt(characters.size());
+        for (MarvelCharacter character : characters) {
+            output.writeLong(character.getId());
+            writeString(output, character.getName());
+            writeString(output, character.getDescription());
+            writeString(output, character.getModified());
+            MarvelCharacter.Thumbnail thumbnail = character.getThumbnail();
+            output.writeBoolean(thumbnail != null);
+            if (thumbnail != null) {
+                writeString(output, thumbnail.getPath());
+                writeString(output, thumbnail.getExtension());
+            }
+        }
+
+        //The checksum covers everything written so far, so it goes straight to the underlying stream
+        output.flush();
+        DataOutputStream trailer = new DataOutputStream(outputStream);
+        trailer.writeLong(checksum.getValue());
+        trailer.flush();
+    }
+
+    /**
+     * Reads Characters in the snapshot format
+     *
+     * @param inputStream - the stream to read from
+     * @return - the Marvel Characters
+     * @throws IOException - thrown if the stream is not a snapshot of a supported version, or is corrupted
+     */
+    static List<MarvelCharacter> read(InputStream inputStream) throws IOException {
+        CRC32 checksum = new CRC32();
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+        DataInputStream input = new DataInputStream(new CheckedInputStream(bufferedInputStream, checksum));
+
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a Marvel Characters snapshot");
+        }
+        int formatVersion = input.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported Marvel Characters snapshot version " + formatVersion);
+        }
+        Instant createdAt = Instant.ofEpochMilli(input.readLong());
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of Marvel Characters " + count);
+        }
+
+        List<MarvelCharacter> characters = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            long id = input.readLong();
+            String name = readString(input);
+            String description = readString(input);
+            String modified = readString(input);
+            MarvelCharacter.Thumbnail thumbnail = input.readBoolean() ?
+                    new MarvelCharacter.Thumbnail(readString(input), readString(input)) : null;
+            characters.add(new MarvelCharacter(id, name, description, thumbnail, modified));
+        }
+
+        long expectedChecksum = checksum.getValue();
+        if (new DataInputStream(bufferedInputStream).readLong() != expectedChecksum) {
+            throw new IOException("The Marvel Characters snapshot is corrupted");
+        }
+
+        LOGGER.info("Read {} Marvel Characters from a snapshot taken {} minutes ago", count,
+                Duration.between(createdAt, Instant.now()).toMinutes());
+        return characters;
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 string. Unlike {@link DataOutputStream#writeUTF(String)}, it isn't limited to 64KB and can write
+     * nulls.
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IOException("The string is " + bytes.length + " bytes long, longer than the " + MAX_STRING_LENGTH + " bytes allowed");
+        }
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package yapily.marvel.service;
+
+import java.time.Duration;
+
+/**
+ * Stops calling a dependency that keeps failing. After a number of consecutive failures the circuit opens and every call is rejected
+ * straight away. Once the open duration is over, the circuit goes half-open and lets a single probe call through: it closes again if the
+ * probe succeeds, and opens for another open duration if it fails.
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Checks whether a call may go through. Every call that is allowed must then report its outcome through {@link #onSuccess()},
+     * {@link #onFailure()} or {@link #release()}.
+     *
+     * @return - true if the call may go through, false if the circuit is open or a half-open probe is already in flight
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+        }
+
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reports a call that succeeded, closing the circuit
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Reports a call that failed, opening the circuit if it was a half-open probe or the failure threshold has been reached
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+        probeInFlight = false;
+    }
+
+    /**
+     * Reports a call that was allowed but says nothing about the health of the dependency, because it never reached it or the dependency
+     * refused the call itself
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+}
@@ -0,0 +1,140 @@
+package yapily.marvel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts how often each Marvel Character is requested, so the most requested ones can be prepared ahead of the requests for them. The
+ * counts are halved every time they are decayed, so they follow the current traffic rather than the whole uptime. The most requested
+ * Characters can be saved to disk, so a restarted application knows which Characters to prepare before the traffic picks up again.
+ */
+@Component
+public class HotCharacterTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotCharacterTracker.class);
+
+    private final int maxTracked;
+    private final Path location;
+    private final ConcurrentMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public HotCharacterTracker(@Value("${marvel.hot-characters.max-tracked}") int maxTracked,
+                               @Value("${marvel.hot-characters.location}") String location) {
+        this.maxTracked = maxTracked;
+        this.location = location.isEmpty() ? null : Paths.get(location);
+    }
+
+    /**
+     * Counts a request for a Marvel Character. Once the maximum number of Characters is tracked, new ones are ignored until the next
+     * decay makes room for them.
+     *
+     * @param id - the id of the requested Marvel Character
+     */
+    public void record(Long id) {
+        LongAdder count = counts.get(id);
+        if (count == null) {
+            if (counts.size() >= maxTracked) {
+                return;
+            }
+            count = counts.computeIfAbsent(id, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Gets the most requested Marvel Characters
+     *
+     * @param limit - the maximum number of Characters to return
+     * @return - the ids of the most requested Characters, the most requested first
+     */
+    public List<Long> getHottest(int limit) {
+        return counts.entrySet().stream()
+                .map(entry -> new long[]{entry.getKey(), entry.getValue().sum()})
+                .filter(entry -> entry[1] > 0)
+                .sorted(Comparator.comparingLong((long[] entry) -> entry[1]).reversed())
+                .limit(limit)
+                .map(entry -> entry[0])
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Halves every count, dropping the Characters that are no longer requested
+     */
+    public void decay() {
+        for (Map.Entry<Long, LongAdder> entry : counts.entrySet()) {
+            LongAdder count = entry.getValue();
+            long halved = count.sumThenReset() / 2;
+            if (halved > 0) {
+                count.add(halved);
+            } else {
+                counts.remove(entry.getKey(), count);
+            }
+        }
+    }
+
+    /**
+     * Saves the ids of the most requested Characters, replacing the ones saved before. Failures are logged rather than thrown, since the
+     * saved ids only help after a restart.
+     *
+     * @param ids - the ids of the most requested Characters
+     */
+    public void save(List<Long> ids) {
+        if (location == null) {
+            return;
+        }
+
+        try {
+            Path directory = location.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, location.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporaryFile, ids.stream().map(String::valueOf).collect(Collectors.toList()), StandardCharsets.US_ASCII);
+                Files.move(temporaryFile, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to save the most requested Marvel Characters to {}", location, e);
+        }
+    }
+
+    /**
+     * Loads the ids saved by the last call to {@link #save(List)}
+     *
+     * @return - the ids of the most requested Characters, or an empty list if none were saved or they cannot be read
+     */
+    public List<Long> load() {
+        if (location == null || !Files.isRegularFile(location)) {
+            return Collections.emptyList();
+        }
+
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (String line : Files.readAllLines(location, StandardCharsets.US_ASCII)) {
+                if (!line.trim().isEmpty()) {
+                    ids.add(Long.valueOf(line.trim()));
+                }
+            }
+            return ids;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring the most requested Marvel Characters saved at {} since they cannot be read", location, e);
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package yapily.marvel.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
+import yapily.marvel.exceptions.MissingJsonNodeException;
+import yapily.marvel.exceptions.UnableToProcessJsonException;
+import yapily.marvel.model.MarvelPage;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crawls a paginated Marvel API resource. The first page is fetched to find out how many results are available, after which the
+ * remaining pages are fetched concurrently on a bounded executor and merged back in order.
+ */
+@Component
+public class MarvelCrawler {
+    //The Marvel API can only fetch 100 results at a time
+    protected static final int PAGE_SIZE = 100;
+
+    private final ExecutorService executor;
+
+    public MarvelCrawler(@Value("${marvel.crawler.threads}") int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "marvel-crawler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fetches every page of a Marvel API resource
+     *
+     * @param pageFetcher - fetches and parses the page starting at a given offset
+     * @param <T>         - the type of the results in each page
+     * @return - the results of all the pages, in the order returned by the Marvel API
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     * @throws MissingJsonNodeException      - thrown if the "data" or "results" node is missing from any page
+     */
+    public <T> List<T> crawl(PageFetcher<T> pageFetcher) throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        MarvelPage<T> firstPage = pageFetcher.fetch(0, PAGE_SIZE);
+
+        List<Future<MarvelPage<T>>> pages = new ArrayList<>();
+        for (int offset = PAGE_SIZE; offset < firstPage.getTotal(); offset += PAGE_SIZE) {
+            int pageOffset = offset;
+            pages.add(executor.submit(() -> pageFetcher.fetch(pageOffset, PAGE_SIZE)));
+        }
+
+        List<T> results = new ArrayList<>(Math.max(firstPage.getTotal(), firstPage.getResults().size()));
+        results.addAll(firstPage.getResults());
+
+        try {
+            for (MarvelPage<T> page : getAll(pages)) {
+                results.addAll(page.getResults());
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Interrupted while crawling the Marvel API", e);
+        } catch (Exception e) {
+            rethrow(e);
+        }
+
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Waits for every fetch in order. As soon as one fails or the caller is interrupted, the fetches still waiting for a thread are
+     * removed and the running ones are interrupted, so a failed crawl stops using the Marvel API quota.
+     */
+    private static <T> List<T> getAll(List<Future<T>> futures) throws Exception {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        return results;
+    }
+
+    private static void rethrow(Exception cause) throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        if (cause instanceof MarvelApiKeyNotFoundException) {
+            throw (MarvelApiKeyNotFoundException) cause;
+        } else if (cause instanceof UnableToProcessJsonException) {
+            throw (UnableToProcessJsonException) cause;
+        } else if (cause instanceof MissingJsonNodeException) {
+            throw (MissingJsonNodeException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException(cause);
+    }
+
+    /**
+     * Fetches and parses a single page of a Marvel API resource
+     *
+     * @param <T> - the type of the results in the page
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        MarvelPage<T> fetch(int offset, int limit) throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+                MissingJsonNodeException;
+    }
+}
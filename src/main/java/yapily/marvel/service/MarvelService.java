@@ -2,6 +2,8 @@ package yapily.marvel.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import yapily.marvel.exceptions.*;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.model.CharacterResult;
 import yapily.marvel.model.MarvelCharacter;
 
 import java.util.List;
@@ -10,13 +12,66 @@ public interface MarvelService {
     /**
      * Gets the IDs from all the Marvel Characters. Since this method is expensive, the application stores it into the cache.
      *
-     * @return - a List of all the IDs from the Marvel Characters
+     * @return - a snapshot of all the IDs from the Marvel Characters
      * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
      * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
      */
-    List<Long> getCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException,
+    CharacterIds getCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException,
             JsonProcessingException;
 
+    /**
+     * Fetches the IDs from all the Marvel Characters again and swaps them into the cache once complete. Callers of
+     * {@link #getCharactersIds()} keep getting the previous IDs while the refresh is running.
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    CharacterIds refreshCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException;
+
+    /**
+     * Fetches every Marvel Character again, rather than only the ones modified since the last refresh, and swaps their IDs into the cache
+     * once complete. This also drops the Characters that were removed from the Marvel API.
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    CharacterIds resyncCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException;
+
+    /**
+     * Loads the Marvel Characters saved to disk after the last successful refresh and swaps their IDs into the cache, without calling the
+     * Marvel API
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters, or null if there is no snapshot on disk
+     */
+    CharacterIds restoreCharactersIds();
+
+    /**
+     * Gets the IDs from all the Marvel Characters if they have already been loaded into the cache, without calling the Marvel API
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters, or null if they haven't been loaded yet
+     */
+    CharacterIds peekCharactersIds();
+
+    /**
+     * Gets a Marvel Character from the local mirror of the Marvel API, without calling the Marvel API
+     *
+     * @param id - the id of the Marvel Character
+     * @return - the {@link MarvelCharacter}, or null if it isn't in the mirror
+     */
+    MarvelCharacter peekCharacter(Long id);
+
+    /**
+     * Finds the Marvel Characters whose name matches a query in the local mirror of the Marvel API, without calling the Marvel API
+     *
+     * @param query - the words the Character name should contain, or start with. Case and accents are ignored
+     * @param limit - the maximum number of Characters to return
+     * @return - the matching {@link MarvelCharacter}s, the best matches first
+     * @throws CharactersNotLoadedException - thrown if the mirror hasn't been loaded yet
+     */
+    List<MarvelCharacter> searchCharacters(String query, int limit) throws CharactersNotLoadedException;
+
     /**
      * Gets a specific {@link MarvelCharacter} by ID
      *
@@ -43,4 +98,18 @@ public interface MarvelService {
      */
     MarvelCharacter getTranslatedCharacter(Long id, String languageCode) throws CharacterNotFoundException, MarvelApiKeyNotFoundException
             , YandexApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException, JsonProcessingException;
+
+    /**
+     * Gets several {@link MarvelCharacter}s at once. Cached Characters are returned straight away and the rest are fetched concurrently.
+     *
+     * @param ids          - the ids of the Marvel Characters to fetch. Repeated ids are only looked up once
+     * @param languageCode - An optional 2 character language code to translate the descriptions to
+     * @return - a {@link CharacterResult} for each distinct id, in the order they were requested
+     * @throws TooManyCharacterIdsException  - thrown if more ids were requested than allowed in a single batch
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws YandexApiKeyNotFoundException - thrown if the Yandex API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    List<CharacterResult> getCharacters(List<Long> ids, String languageCode) throws TooManyCharacterIdsException,
+            MarvelApiKeyNotFoundException, YandexApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException;
 }
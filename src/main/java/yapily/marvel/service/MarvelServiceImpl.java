@@ -2,81 +2,228 @@ package yapily.marvel.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.annotations.VisibleForTesting;
-import org.apache.commons.codec.digest.DigestUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import yapily.marvel.CacheConfig;
 import yapily.marvel.exceptions.*;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.model.CharacterResult;
 import yapily.marvel.model.MarvelCharacter;
+import yapily.marvel.model.MarvelPage;
+import yapily.marvel.service.UpstreamScheduler.Priority;
+import yapily.marvel.service.UpstreamScheduler.Upstream;
 
-import java.io.FileInputStream;
-import java.io.IOException;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Properties;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class MarvelServiceImpl implements MarvelService {
     protected static final String EXTERNAL_MARVEL_API = "https://gateway.marvel.com:443/v1/public";
     protected static final String CHARACTERS_API = "/characters";
-    protected static final int DEFAULT_OFFSET = 100;
     protected static final String ENGLISH_LANGUAGE_CODE = "en";
 
-    @Value("${api.keys.location}")
-    private String apiKeysLocation;
+    private RestTemplate restTemplate;
 
-    @Value("${marvel.key.public}")
-    private String marvelPublicKey;
+    private TranslateService translateService;
 
-    @Value("${marvel.key.private}")
-    private String marvelPrivateKey;
+    private MarvelCrawler marvelCrawler;
 
-    private RestTemplate restTemplate;
+    private Cache characterCache;
 
-    private TranslateService translateService;
+    private Cache charactersCache;
+
+    private ApiKeyProvider apiKeyProvider;
+
+    private CharacterSnapshotStore snapshotStore;
+
+    private UpstreamScheduler upstreamScheduler;
+
+    private HotCharacterTracker hotCharacterTracker;
+
+    private int maxBatchSize;
+
+    private final Timer jsonParseTimer;
+
+    private final DistributionSummary jsonParseSize;
+
+    private final CharacterMirror characterMirror = new CharacterMirror();
 
-    public MarvelServiceImpl(TranslateService translateService, RestTemplateBuilder builder) {
+    private final SingleFlight<Long, MarvelCharacter> characterRequests;
+
+    private final ThreadPoolExecutor lookupExecutor;
+
+    public MarvelServiceImpl(TranslateService translateService, RestTemplateBuilder builder, MarvelCrawler marvelCrawler,
+                             CacheManager cacheManager, ApiKeyProvider apiKeyProvider, CharacterSnapshotStore snapshotStore,
+                             UpstreamScheduler upstreamScheduler, HotCharacterTracker hotCharacterTracker,
+                             MeterRegistry meterRegistry, @Value("${marvel.character.wait-timeout}") Duration characterWaitTimeout,
+                             @Value("${marvel.batch.max-ids}") int maxBatchSize,
+                             @Value("${marvel.batch.lookup-threads}") int lookupThreads) {
         this.translateService = translateService;
         this.restTemplate = builder.build();
+        this.marvelCrawler = marvelCrawler;
+        this.characterCache = cacheManager.getCache(CacheConfig.CHARACTER_CACHE);
+        this.charactersCache = cacheManager.getCache(CacheConfig.CHARACTERS_CACHE);
+        this.apiKeyProvider = apiKeyProvider;
+        this.snapshotStore = snapshotStore;
+        this.upstreamScheduler = upstreamScheduler;
+        this.hotCharacterTracker = hotCharacterTracker;
+        this.maxBatchSize = maxBatchSize;
+        this.characterRequests = new SingleFlight<>(characterWaitTimeout);
+
+        //Batch lookups get threads of their own rather than queueing behind the pages of a background crawl. There is no queue either:
+        // once every thread is busy, the request thread looks the Character up itself, so a lookup never waits for a thread
+        AtomicInteger threadCount = new AtomicInteger();
+        this.lookupExecutor = new ThreadPoolExecutor(lookupThreads, lookupThreads, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "marvel-lookup-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        new ExecutorServiceMetrics(lookupExecutor, "marvel.lookups", Tags.empty()).bindTo(meterRegistry);
+        this.jsonParseTimer = Timer.builder("marvel.json.parse")
+                .description("Time spent parsing the responses of the Marvel API")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.jsonParseSize = DistributionSummary.builder("marvel.json.parse.size")
+                .description("Length of the responses of the Marvel API that were parsed")
+                .baseUnit("characters")
+                .register(meterRegistry);
     }
 
     /**
-     * Gets the IDs from all the Marvel Characters. Since this method is expensive, the application stores it into the cache.
+     * Gets the IDs from all the Marvel Characters. Since this method is expensive, the application stores it into the cache. The first
+     * call also loads every Marvel Character into the local mirror.
      *
-     * @return - a List of all the IDs from the Marvel Characters
+     * @return - a snapshot of all the IDs from the Marvel Characters
      * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
      * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
      */
     @Override
-    @Cacheable("characters")
-    public List<Long> getCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException,
+    @Cacheable(CacheConfig.CHARACTERS_CACHE)
+    public CharacterIds getCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException,
             JsonProcessingException {
-        List<MarvelCharacter> allCharactersFromJson = new ArrayList<>();
-        List<MarvelCharacter> charactersFromJson;
+        return syncCharacters(false);
+    }
+
+    /**
+     * Fetches the Marvel Characters modified since the last sync into the local mirror and replaces the cached list of IDs once they have
+     * all been fetched. Until then, callers of {@link #getCharactersIds()} keep getting the previous list.
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    @Override
+    @CachePut(CacheConfig.CHARACTERS_CACHE)
+    public CharacterIds refreshCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        return syncCharacters(false);
+    }
 
-        //The Marvel API can only fetch 100 results at a time so we need to make multiple requests changing the offset until we can't
-        // find any more results
-        int currentOffset = 0;
+    /**
+     * Fetches every Marvel Character into the local mirror again, which also drops the Characters removed from the Marvel API, and
+     * replaces the cached list of IDs once they have all been fetched
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    @Override
+    @CachePut(CacheConfig.CHARACTERS_CACHE)
+    public CharacterIds resyncCharactersIds() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        return syncCharacters(true);
+    }
+
+    /**
+     * Loads the Marvel Characters saved to disk after the last successful sync into the local mirror and the cached list of IDs, without
+     * calling the Marvel API. A later {@link #refreshCharactersIds()} only fetches the Characters modified since the snapshot was taken.
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters, or null if there is no snapshot on disk
+     */
+    @Override
+    @CachePut(value = CacheConfig.CHARACTERS_CACHE, unless = "#result == null")
+    public synchronized CharacterIds restoreCharactersIds() {
+        List<MarvelCharacter> characters = snapshotStore.load();
+        if (characters == null) {
+            return null;
+        }
+
+        characterMirror.replaceAll(characters);
+        return characterMirror.getIds();
+    }
 
-        do {
-            String json = restTemplate.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + getApiUri() + "&offset=" + currentOffset,
-                    String.class);
-            charactersFromJson = MarvelCharacter.getCharactersFromJson(json);
-            allCharactersFromJson.addAll(charactersFromJson);
-            currentOffset += DEFAULT_OFFSET;
-        } while (!charactersFromJson.isEmpty());
+    /**
+     * Gets the IDs from all the Marvel Characters if they have already been loaded into the cache, without calling the Marvel API
+     *
+     * @return - a snapshot of all the IDs from the Marvel Characters, or null if they haven't been loaded yet
+     */
+    @Override
+    public CharacterIds peekCharactersIds() {
+        //getCharactersIds and refreshCharactersIds take no parameters, so Spring caches their result under the empty key
+        return charactersCache.get(SimpleKey.EMPTY, CharacterIds.class);
+    }
 
-        return allCharactersFromJson.stream().map(MarvelCharacter::getId).collect(Collectors.toList());
+    /**
+     * Gets a Marvel Character from the local mirror, without calling the Marvel API
+     *
+     * @param id - the id of the Marvel Character
+     * @return - the {@link MarvelCharacter}, or null if it isn't in the mirror
+     */
+    @Override
+    public MarvelCharacter peekCharacter(Long id) {
+        return characterMirror.get(id);
     }
 
     /**
-     * Gets a specific {@link MarvelCharacter} by ID
+     * Finds the Marvel Characters whose name matches a query in the name index of the local mirror, which is rebuilt after every sync
+     *
+     * @param query - the words the Character name should contain, or start with. Case and accents are ignored
+     * @param limit - the maximum number of Characters to return
+     * @return - the matching {@link MarvelCharacter}s, the best matches first
+     * @throws CharactersNotLoadedException - thrown if the mirror hasn't been loaded yet, rather than reporting that nothing matched
+     */
+    @Override
+    public List<MarvelCharacter> searchCharacters(String query, int limit) throws CharactersNotLoadedException {
+        if (!characterMirror.isLoaded()) {
+            throw new CharactersNotLoadedException();
+        }
+        return characterMirror.search(query, limit);
+    }
+
+    /**
+     * Gets a specific {@link MarvelCharacter} by ID. Once every Marvel Character has been loaded into the local mirror, Characters are
+     * served from it and IDs that aren't one of them are reported as not found without calling the Marvel API. Until then, Characters,
+     * and IDs the Marvel API couldn't find, are kept in the character cache so repeated lookups are served from memory until they expire.
+     * Every Character that is found is counted by the {@link HotCharacterTracker}, so the most requested Characters can be translated
+     * ahead of time. Ids that don't exist are never counted, so they cannot push the real Characters out of the tracker.
      *
      * @param id - the id of the Marvel Character to fetch
      * @return - the {@link MarvelCharacter}
@@ -87,24 +234,53 @@ public class MarvelServiceImpl implements MarvelService {
     @Override
     public MarvelCharacter getCharacter(Long id) throws CharacterNotFoundException, MarvelApiKeyNotFoundException,
             UnableToProcessJsonException, MissingJsonNodeException, JsonProcessingException {
-        RestTemplate restTemplate = new RestTemplate();
+        MarvelCharacter character = findCharacter(id);
+        hotCharacterTracker.record(id);
+        return character;
+    }
 
-        String json = null;
-        try {
-            json = restTemplate.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + "/" + id + getApiUri(), String.class);
-        } catch (HttpStatusCodeException e) {
-            if (e.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
-                throw new CharacterNotFoundException(id, e);
-            }
+    /**
+     * Gets a specific {@link MarvelCharacter} by ID from the local mirror, the character cache or the Marvel API, without counting the
+     * lookup
+     *
+     * @param id - the id of the Marvel Character to fetch
+     * @return - the {@link MarvelCharacter}
+     * @throws CharacterNotFoundException    - thrown if no Character could be found
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    private MarvelCharacter findCharacter(Long id) throws CharacterNotFoundException, MarvelApiKeyNotFoundException,
+            UnableToProcessJsonException, MissingJsonNodeException {
+        MarvelCharacter mirroredCharacter = characterMirror.get(id);
+        if (mirroredCharacter != null) {
+            return mirroredCharacter;
         }
 
-        List<MarvelCharacter> charactersFromJson = MarvelCharacter.getCharactersFromJson(json);
+        MarvelCharacter cachedCharacter = getCachedCharacter(id);
+        if (cachedCharacter != null) {
+            return cachedCharacter;
+        }
 
-        return charactersFromJson.get(0);
+        //Concurrent misses for the same id share a single call to the Marvel API. The cache is checked again by the call that goes
+        // upstream, in case another call for the same id completed in the meantime
+        try {
+            return characterRequests.execute(id, () -> {
+                MarvelCharacter character = getCachedCharacter(id);
+                return character != null ? character : fetchCharacter(id);
+            });
+        } catch (CharacterNotFoundException | MarvelApiKeyNotFoundException | UnableToProcessJsonException | MissingJsonNodeException
+                | RuntimeException e) {
+            throw e;
+        } catch (TimeoutException e) {
+            throw new UpstreamUnavailableException(Upstream.MARVEL.getName(), e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
-     * Gets a specific {@link MarvelCharacter} by ID translating its description to a different language
+     * Gets a specific {@link MarvelCharacter} by ID translating its description to a different language. If Yandex is failing or too
+     * slow, the Character is returned with its English description and flagged as such, rather than failing the request.
      *
      * @param id           - the id of the Marvel Character to fetch
      * @param languageCode - A 2 character language code to translate the description to. The list of codes can be found here: https://en
@@ -121,11 +297,293 @@ public class MarvelServiceImpl implements MarvelService {
             JsonProcessingException {
         MarvelCharacter character = getCharacter(id);
 
-        character.setTranslatedDescription(translateService.translate(character.getDescription(), ENGLISH_LANGUAGE_CODE, languageCode));
+        //The character is shared through the character cache, so the translation is returned as a separate view of it
+        try {
+            return character.translated(translateService.translate(character.getDescription(), ENGLISH_LANGUAGE_CODE, languageCode));
+        } catch (TranslationUnavailableException e) {
+            return character.untranslated();
+        }
+    }
+
+    /**
+     * Gets several {@link MarvelCharacter}s at once. Cached Characters are returned straight away and the rest are fetched concurrently
+     * in the interactive lane, on the lookup executor. A Character the Marvel API couldn't be asked for is reported as unavailable
+     * instead of failing the whole batch. The descriptions are then translated together, so they are packed into as few calls to Yandex
+     * as possible.
+     *
+     * @param ids          - the ids of the Marvel Characters to fetch. Repeated ids are only looked up once
+     * @param languageCode - An optional 2 character language code to translate the descriptions to
+     * @return - a {@link CharacterResult} for each distinct id, in the order they were requested
+     * @throws TooManyCharacterIdsException  - thrown if more ids were requested than allowed in a single batch
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws YandexApiKeyNotFoundException - thrown if the Yandex API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    @Override
+    public List<CharacterResult> getCharacters(List<Long> ids, String languageCode) throws TooManyCharacterIdsException,
+            MarvelApiKeyNotFoundException, YandexApiKeyNotFoundException, UnableToProcessJsonException, MissingJsonNodeException {
+        if (ids.size() > maxBatchSize) {
+            throw new TooManyCharacterIdsException(ids.size(), maxBatchSize);
+        }
+
+        Map<Long, CharacterResult> results = new LinkedHashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            CharacterResult cachedResult = getCachedResult(id);
+            results.put(id, cachedResult);
+            if (cachedResult == null) {
+                misses.add(id);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            lookupCharacters(misses).forEach(result -> results.put(result.getId(), result));
+        }
+
+        List<CharacterResult> characterResults = new ArrayList<>(results.values());
+        for (CharacterResult result : characterResults) {
+            if (result.getCharacter() != null) {
+                hotCharacterTracker.record(result.getId());
+            }
+        }
+        return StringUtils.isEmpty(languageCode) ? characterResults : translateResults(characterResults, languageCode);
+    }
+
+    /**
+     * Translates the descriptions of the Characters found by a batch lookup with a single call to the translate service. If Yandex is
+     * failing or too slow, the Characters are returned with their English descriptions and flagged as such.
+     *
+     * @param results      - the results of the batch lookup
+     * @param languageCode - A 2 character language code to translate the descriptions to
+     * @return - the results, with the descriptions of the Characters that were found translated
+     * @throws YandexApiKeyNotFoundException - thrown if the Yandex API key cannot be located
+     */
+    private List<CharacterResult> translateResults(List<CharacterResult> results, String languageCode)
+            throws YandexApiKeyNotFoundException {
+        List<String> descriptions = new ArrayList<>();
+        for (CharacterResult result : results) {
+            if (result.getCharacter() != null) {
+                descriptions.add(result.getCharacter().getDescription());
+            }
+        }
+
+        List<String> translations;
+        try {
+            translations = translateService.translateAll(descriptions, ENGLISH_LANGUAGE_CODE, languageCode);
+        } catch (TranslationUnavailableException e) {
+            translations = null;
+        }
+
+        //The characters are shared through the character cache, so the translations are returned as separate views of them
+        List<CharacterResult> translatedResults = new ArrayList<>(results.size());
+        int index = 0;
+        for (CharacterResult result : results) {
+            MarvelCharacter character = result.getCharacter();
+            if (character == null) {
+                translatedResults.add(result);
+                continue;
+            }
+            MarvelCharacter translatedCharacter = translations == null ? character.untranslated()
+                    : character.translated(translations.get(index));
+            translatedResults.add(CharacterResult.found(result.getId(), translatedCharacter));
+            index++;
+        }
+
+        return translatedResults;
+    }
+
+    /**
+     * Gets the {@link CharacterResult} for a Character in the local mirror or the character cache
+     *
+     * @param id - the id of the Marvel Character to fetch
+     * @return - the cached {@link CharacterResult}, or null if it isn't cached
+     */
+    private CharacterResult getCachedResult(Long id) {
+        MarvelCharacter mirroredCharacter = characterMirror.get(id);
+        if (mirroredCharacter != null) {
+            return CharacterResult.found(id, mirroredCharacter);
+        }
+
+        try {
+            MarvelCharacter character = getCachedCharacter(id);
+            return character != null ? CharacterResult.found(id, character) : null;
+        } catch (CharacterNotFoundException e) {
+            return CharacterResult.notFound(id);
+        }
+    }
+
+    /**
+     * Looks up the Characters of a batch that aren't cached, concurrently on the lookup executor
+     *
+     * @param ids - the ids of the Marvel Characters to fetch
+     * @return - a {@link CharacterResult} for each id, in the same order
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    private List<CharacterResult> lookupCharacters(List<Long> ids) throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        List<Future<CharacterResult>> futures = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            futures.add(lookupExecutor.submit(() -> lookupCharacter(id)));
+        }
+
+        List<CharacterResult> results = new ArrayList<>(ids.size());
+        try {
+            for (Future<CharacterResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof MarvelApiKeyNotFoundException) {
+                throw (MarvelApiKeyNotFoundException) cause;
+            } else if (cause instanceof UnableToProcessJsonException) {
+                throw (UnableToProcessJsonException) cause;
+            } else if (cause instanceof MissingJsonNodeException) {
+                throw (MissingJsonNodeException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while looking up Marvel Characters", e);
+        }
+
+        return results;
+    }
+
+    /**
+     * Looks up a single Character of a batch, reporting Characters that couldn't be found, or that the Marvel API couldn't be asked for,
+     * instead of failing the whole batch
+     *
+     * @param id - the id of the Marvel Character to fetch
+     * @return - the {@link CharacterResult}
+     */
+    private CharacterResult lookupCharacter(Long id) throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        try {
+            return CharacterResult.found(id, findCharacter(id));
+        } catch (CharacterNotFoundException e) {
+            return CharacterResult.notFound(id);
+        } catch (UpstreamUnavailableException e) {
+            return CharacterResult.unavailable(id);
+        }
+    }
+
+    /**
+     * Gets a {@link MarvelCharacter} from the character cache
+     *
+     * @param id - the id of the Marvel Character to fetch
+     * @return - the cached {@link MarvelCharacter}, or null if it isn't cached
+     * @throws CharacterNotFoundException - thrown if the Marvel API couldn't find the Character the last time it was fetched, or if it
+     *                                    isn't one of the cached IDs of all the Marvel Characters
+     */
+    private MarvelCharacter getCachedCharacter(Long id) throws CharacterNotFoundException {
+        Cache.ValueWrapper cachedCharacter = characterCache.get(id);
+        if (cachedCharacter == null) {
+            CharacterIds characterIds = peekCharactersIds();
+            if (characterIds != null && !characterIds.contains(id)) {
+                throw new CharacterNotFoundException(id);
+            }
+            return null;
+        }
+        if (cachedCharacter.get() == CacheConfig.NOT_FOUND) {
+            throw new CharacterNotFoundException(id);
+        }
+        return (MarvelCharacter) cachedCharacter.get();
+    }
+
+    /**
+     * Fetches a {@link MarvelCharacter} from the Marvel API and stores it, or the fact it wasn't found, in the character cache
+     *
+     * @param id - the id of the Marvel Character to fetch
+     * @return - the {@link MarvelCharacter}
+     * @throws CharacterNotFoundException    - thrown if no Character could be found
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     * @throws UpstreamUnavailableException  - thrown if the Marvel API answered with an error other than not found
+     */
+    private MarvelCharacter fetchCharacter(Long id) throws CharacterNotFoundException, MarvelApiKeyNotFoundException,
+            UnableToProcessJsonException, MissingJsonNodeException {
+        String json;
+        try {
+            json = upstreamScheduler.execute(Upstream.MARVEL, Priority.INTERACTIVE,
+                    () -> restTemplate.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + "/" + id + getApiUri(), String.class));
+        } catch (HttpStatusCodeException e) {
+            if (e.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+                characterCache.put(id, CacheConfig.NOT_FOUND);
+                throw new CharacterNotFoundException(id, e);
+            }
+            throw new UpstreamUnavailableException(Upstream.MARVEL.getName(), e);
+        }
+
+        //An answer without any Character, or only with Characters missing their id, means the same as a 404
+        List<MarvelCharacter> results = parseCharactersPage(json).getResults();
+        if (results.isEmpty()) {
+            characterCache.put(id, CacheConfig.NOT_FOUND);
+            throw new CharacterNotFoundException(id);
+        }
+        MarvelCharacter character = results.get(0);
+        characterCache.put(id, character);
 
         return character;
     }
 
+    /**
+     * Brings the local mirror up to date with the Marvel API. The whole catalogue is crawled the first time, or when a full sync is
+     * requested, and after that only the Characters modified since the last sync are fetched. The mirror is saved to disk whenever it
+     * changes.
+     *
+     * @param full - whether to crawl the whole catalogue even if the mirror is already loaded
+     * @return - a snapshot of all the IDs from the Marvel Characters
+     * @throws MarvelApiKeyNotFoundException - thrown if the Marvel API key cannot be located
+     * @throws UnableToProcessJsonException  - thrown if there was an error processing the json String
+     */
+    private synchronized CharacterIds syncCharacters(boolean full) throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        //The Marvel API can only fetch 100 results at a time so the crawler reads the total from the first page and then fetches the
+        // remaining pages concurrently. Pages are fetched in the background lane, so lookups made by users get the quota first
+        String modifiedSince = characterMirror.getModifiedSince();
+        if (full || !characterMirror.isLoaded() || modifiedSince == null) {
+            characterMirror.replaceAll(marvelCrawler.crawl((offset, limit) -> parseCharactersPage(
+                    upstreamScheduler.execute(Upstream.MARVEL, Priority.BACKGROUND, () -> restTemplate.getForObject(
+                            EXTERNAL_MARVEL_API + CHARACTERS_API + getApiUri() + "&limit=" + limit + "&offset=" + offset, String.class)))));
+            snapshotStore.save(characterMirror.getCharacters());
+        } else {
+            List<MarvelCharacter> modifiedCharacters = marvelCrawler.crawl((offset, limit) -> parseCharactersPage(
+                    upstreamScheduler.execute(Upstream.MARVEL, Priority.BACKGROUND, () -> restTemplate.getForObject(
+                            EXTERNAL_MARVEL_API + CHARACTERS_API + getApiUri() + "&modifiedSince=" + modifiedSince
+                                    + "&orderBy=-modified&limit=" + limit + "&offset=" + offset, String.class))));
+            characterMirror.putAll(modifiedCharacters);
+            if (!modifiedCharacters.isEmpty()) {
+                snapshotStore.save(characterMirror.getCharacters());
+            }
+        }
+
+        return characterMirror.getIds();
+    }
+
+    /**
+     * Parses a response of the Marvel API, recording how long it took and how long the response was
+     *
+     * @param json - the json returned by the Marvel API
+     * @return - a {@link MarvelPage} of {@link MarvelCharacter}
+     * @throws UnableToProcessJsonException - thrown if there was an error processing the json String
+     */
+    private MarvelPage<MarvelCharacter> parseCharactersPage(String json) throws UnableToProcessJsonException, MissingJsonNodeException {
+        long start = System.nanoTime();
+        try {
+            return MarvelCharacter.getCharactersPageFromJson(json);
+        } finally {
+            jsonParseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (json != null) {
+                jsonParseSize.record(json.length());
+            }
+        }
+    }
+
     /**
      * Gets the necessary attributes to make a call to the Marvel API. This includes a timestamp an apikey and a md5hash of these
      *
@@ -134,18 +592,11 @@ public class MarvelServiceImpl implements MarvelService {
      */
     @VisibleForTesting
     protected String getApiUri() throws MarvelApiKeyNotFoundException {
-        //Loads the Marvel API key file which contains 2 properties: marvelPublicKey and marvelPrivateKey
-        Properties properties = new Properties();
-        try {
-            properties.load(new FileInputStream(apiKeysLocation));
-        } catch (IOException e) {
-            throw new MarvelApiKeyNotFoundException(apiKeysLocation, e);
-        }
-        long timestamp = new Date().getTime();
-        String stringToHash = Long.toString(timestamp) + properties.get(marvelPrivateKey) + properties.get(marvelPublicKey);
-
-        String md5Hex = DigestUtils.md5Hex(stringToHash);
+        return apiKeyProvider.getMarvelApiUri();
+    }
 
-        return "?ts=" + timestamp + "&apikey=" + properties.get(marvelPublicKey) + "&hash=" + md5Hex;
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
     }
 }
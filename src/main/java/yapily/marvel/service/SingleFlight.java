@@ -0,0 +1,95 @@
+package yapily.marvel.service;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * De-duplicates concurrent calls for the same key. The first caller for a key runs the loader, every caller that arrives while it is
+ * still running waits for, and gets, the same result or exception instead of running the loader again. Waiting callers give up after a
+ * timeout, so they are never held longer than a caller making the call on its own would be.
+ *
+ * @param <K> - the type of the keys
+ * @param <V> - the type of the loaded values
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final Runnable onWait;
+
+    /**
+     * @param timeout - how long a caller waits for the call already running for its key
+     */
+    public SingleFlight(Duration timeout) {
+        this(timeout, () -> {
+        });
+    }
+
+    /**
+     * @param timeout - how long a caller waits for the call already running for its key
+     * @param onWait  - run by every caller right before it starts waiting for the call already running for its key
+     */
+    @VisibleForTesting
+    SingleFlight(Duration timeout, Runnable onWait) {
+        this.timeout = timeout;
+        this.onWait = onWait;
+    }
+
+    /**
+     * Runs the loader for the key, unless it is already running for that key, in which case its result is awaited instead
+     *
+     * @param key    - the key to de-duplicate calls on
+     * @param loader - loads the value for the key
+     * @return - the loaded value
+     * @throws TimeoutException - thrown if the call already running for the key didn't complete within the timeout
+     * @throws Exception        - the exception thrown by the loader
+     */
+    public V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            onWait.run();
+            return await(existing);
+        }
+
+        try {
+            V value = loader.call();
+            future.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * @return - the number of keys currently being loaded
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+}
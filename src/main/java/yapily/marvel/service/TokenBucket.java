@@ -0,0 +1,117 @@
+package yapily.marvel.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that refills at a steady rate up to its capacity, so calls can go out in short bursts while their average rate stays
+ * within a quota. Callers wait until a token is available, and interactive callers always take the next token ahead of background ones.
+ */
+public class TokenBucket {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+    private int waitingInteractive;
+
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and a capacity of at least one token");
+        }
+        this.permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Waits for a token and takes it
+     *
+     * @param interactive - whether a user is waiting on the call. Background callers wait for as long as an interactive caller is waiting
+     * @throws InterruptedException - thrown if the thread is interrupted while waiting
+     */
+    public void acquire(boolean interactive) throws InterruptedException {
+        tryAcquire(interactive, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits for a token, up to a timeout, and takes it
+     *
+     * @param interactive - whether a user is waiting on the call. Background callers wait for as long as an interactive caller is waiting
+     * @param timeout     - how long to wait for a token
+     * @param unit        - the unit of the timeout
+     * @return - true if a token was taken, false if none was available within the timeout
+     * @throws InterruptedException - thrown if the thread is interrupted while waiting
+     */
+    public synchronized boolean tryAcquire(boolean interactive, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        long timeoutNanos = unit.toNanos(timeout);
+        if (interactive) {
+            waitingInteractive++;
+        }
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long remaining = timeoutNanos - (now - start);
+                refill(now);
+                if (pausedUntil - now <= 0 && (interactive || waitingInteractive == 0) && tokens >= 1) {
+                    tokens -= 1;
+                    return true;
+                }
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                if (pausedUntil - now > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, Math.min(pausedUntil - now, remaining));
+                } else if (!interactive && waitingInteractive > 0) {
+                    //Woken up by the interactive callers once they have their tokens
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } else {
+                    TimeUnit.NANOSECONDS.timedWait(this, Math.min((long) Math.ceil((1 - tokens) / permitsPerNano), remaining));
+                }
+            }
+        } finally {
+            if (interactive) {
+                waitingInteractive--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Stops handing out tokens for a while, and drops the ones already available, so a rate limited API isn't called again before it
+     * asked to be
+     *
+     * @param millis - how long to pause for
+     */
+    public synchronized void pause(long millis) {
+        long now = System.nanoTime();
+        long until = now + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        //Tokens only start to build up again once the pause is over
+        tokens = 0;
+        lastRefill = pausedUntil;
+    }
+
+    /**
+     * @return - the number of tokens currently available
+     */
+    public synchronized double getAvailableTokens() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private void refill(long now) {
+        if (now - lastRefill > 0) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package yapily.marvel.service;
 
+import yapily.marvel.exceptions.TranslationRejectedException;
+import yapily.marvel.exceptions.TranslationUnavailableException;
 import yapily.marvel.exceptions.YandexApiKeyNotFoundException;
 
+import java.util.List;
+
 public interface TranslateService {
 
     /**
@@ -13,7 +17,39 @@ public interface TranslateService {
      * @param toLanguageCode   - A 2 character language code to translate the description to. The list of codes can be found here:
      *                         https://en.wikipedia.org/wiki/List_of_ISO_639-1_codes
      * @return - the translated text
-     * @throws YandexApiKeyNotFoundException - thrown if the Yandex API key cannot be located
+     * @throws YandexApiKeyNotFoundException   - thrown if the Yandex API key cannot be located
+     * @throws TranslationUnavailableException - thrown if Yandex is failing or too slow to translate the text
+     * @throws TranslationRejectedException    - thrown if Yandex refused the translation, such as for a language it doesn't support
+     */
+    String translate(String text, String fromLanguageCode, String toLanguageCode) throws YandexApiKeyNotFoundException,
+            TranslationUnavailableException;
+
+    /**
+     * Translates several texts from one language to another using the Yandex API, packing them into as few calls as possible
+     *
+     * @param texts            - the texts to translate
+     * @param fromLanguageCode - A 2 character language code to translate the texts from
+     * @param toLanguageCode   - A 2 character language code to translate the texts to
+     * @return - the translated texts, in the same order as the texts
+     * @throws YandexApiKeyNotFoundException   - thrown if the Yandex API key cannot be located
+     * @throws TranslationUnavailableException - thrown if Yandex is failing or too slow to translate the texts
+     * @throws TranslationRejectedException    - thrown if Yandex refused the translation, such as for a language it doesn't support
+     */
+    List<String> translateAll(List<String> texts, String fromLanguageCode, String toLanguageCode) throws YandexApiKeyNotFoundException,
+            TranslationUnavailableException;
+
+    /**
+     * Translates several texts ahead of the requests for them, so they are served from the translations cache. Calls to Yandex are made
+     * in the background lane, so they only use the quota that requests don't.
+     *
+     * @param texts            - the texts to translate
+     * @param fromLanguageCode - A 2 character language code to translate the texts from
+     * @param toLanguageCode   - A 2 character language code to translate the texts to
+     * @return - the number of texts that weren't cached yet and had to be sent to Yandex
+     * @throws YandexApiKeyNotFoundException   - thrown if the Yandex API key cannot be located
+     * @throws TranslationUnavailableException - thrown if Yandex is failing
+     * @throws TranslationRejectedException    - thrown if Yandex refused the translation, such as for a language it doesn't support
      */
-    String translate(String text, String fromLanguageCode, String toLanguageCode) throws YandexApiKeyNotFoundException;
+    int pretranslate(List<String> texts, String fromLanguageCode, String toLanguageCode) throws YandexApiKeyNotFoundException,
+            TranslationUnavailableException;
 }
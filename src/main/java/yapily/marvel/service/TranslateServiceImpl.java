@@ -1,46 +1,380 @@
 package yapily.marvel.service;
 
-import com.github.vbauer.yta.model.Direction;
-import com.github.vbauer.yta.model.Language;
-import com.github.vbauer.yta.service.YTranslateApiImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.annotations.VisibleForTesting;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import yapily.marvel.CacheConfig;
+import yapily.marvel.exceptions.TranslationRejectedException;
+import yapily.marvel.exceptions.TranslationUnavailableException;
+import yapily.marvel.exceptions.UpstreamUnavailableException;
 import yapily.marvel.exceptions.YandexApiKeyNotFoundException;
+import yapily.marvel.service.UpstreamScheduler.Priority;
+import yapily.marvel.service.UpstreamScheduler.Upstream;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.Optional;
-import java.util.Properties;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Translates descriptions with the Yandex API. Calls to Yandex are isolated from the rest of the application: they run on a bulkhead, a
+ * small bounded executor of their own, the caller only waits for them up to the translation timeout, and a circuit breaker stops
+ * calling Yandex for a while once it keeps failing. A slow or failing Yandex therefore never holds on to more than a bounded number of
+ * threads. Texts waiting to be translated into the same language are packed into a single call by a {@link TranslationBatcher}.
+ */
 @Service
 public class TranslateServiceImpl implements TranslateService {
-    @Value("${api.keys.location}")
-    private String apiKeysLocation;
+    protected static final String EXTERNAL_YANDEX_API = "https://translate.yandex.net/api/v1.5/tr.json/translate";
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranslateServiceImpl.class);
+    private static final String TEXT = "text";
 
-    @Value("${yandex.key}")
-    private String yandexKey;
+    private final RestTemplate restTemplate;
 
+    private final Cache translationsCache;
+
+    private final ApiKeyProvider apiKeyProvider;
+
+    private final UpstreamScheduler upstreamScheduler;
+
+    private final ThreadPoolExecutor bulkhead;
+
+    private final Duration timeout;
+
+    private final Duration pretranslationTimeout;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final TranslationBatcher batcher;
+
+    private final SingleFlight<String, String> translationRequests;
+
+    public TranslateServiceImpl(RestTemplateBuilder builder, CacheManager cacheManager, ApiKeyProvider apiKeyProvider,
+                                UpstreamScheduler upstreamScheduler, MeterRegistry meterRegistry,
+                                @Value("${yandex.bulkhead.threads}") int bulkheadThreads,
+                                @Value("${yandex.bulkhead.queue-size}") int bulkheadQueueSize,
+                                @Value("${yandex.translation.timeout}") Duration timeout,
+                                @Value("${yandex.pretranslation.timeout}") Duration pretranslationTimeout,
+                                @Value("${yandex.circuit-breaker.failure-threshold}") int failureThreshold,
+                                @Value("${yandex.circuit-breaker.open-duration}") Duration openDuration,
+                                @Value("${yandex.batch.max-texts}") int batchMaxTexts,
+                                @Value("${yandex.batch.max-chars}") int batchMaxChars,
+                                @Value("${yandex.batch.max-background}") int batchMaxBackground,
+                                @Value("${yandex.batch.window}") Duration batchWindow) {
+        this.restTemplate = builder.build();
+        this.translationsCache = cacheManager.getCache(CacheConfig.TRANSLATIONS_CACHE);
+        this.apiKeyProvider = apiKeyProvider;
+        this.upstreamScheduler = upstreamScheduler;
+        this.timeout = timeout;
+        this.pretranslationTimeout = pretranslationTimeout;
+        this.translationRequests = new SingleFlight<>(timeout);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(bulkheadThreads, bulkheadThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bulkheadQueueSize), runnable -> {
+            Thread thread = new Thread(runnable, "yandex-translator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batcher = new TranslationBatcher(batchMaxTexts, batchMaxChars, batchMaxBackground, batchWindow, bulkhead,
+                this::fetchTranslations);
+
+        new ExecutorServiceMetrics(bulkhead, "yandex.bulkhead", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("yandex.circuit-breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("State of the Yandex circuit breaker: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Translates a text from one language to another using the Yandex API. Translations are kept in the translations cache, keyed by a
+     * digest of the text and the language codes, so the same text is only sent to Yandex once per language until the entry expires.
+     *
+     * @param text             - the text to translate
+     * @param fromLanguageCode - A 2 character language code to translate the description from
+     * @param toLanguageCode   - A 2 character language code to translate the description to
+     * @return - the translated text
+     * @throws YandexApiKeyNotFoundException   - thrown if the Yandex API key cannot be located
+     * @throws TranslationUnavailableException - thrown if Yandex failed, didn't answer within the translation timeout, or the bulkhead
+     *                                         or the circuit breaker rejected the call
+     * @throws TranslationRejectedException    - thrown if Yandex refused the translation, such as for a language it doesn't support
+     */
     @Override
-    public String translate(String text, String fromLanguageCode, String toLanguageCode) throws YandexApiKeyNotFoundException {
-        Properties properties = new Properties();
+    public String translate(String text, String fromLanguageCode, String toLanguageCode) throws YandexApiKeyNotFoundException,
+            TranslationUnavailableException {
+        //Plenty of Marvel Characters have no description, there is nothing to translate for those
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+
+        String cacheKey = getCacheKey(text, fromLanguageCode, toLanguageCode);
+        String translation = translationsCache.get(cacheKey, String.class);
+        if (translation != null) {
+            return translation;
+        }
+
+        //Concurrent requests for the same translation share a single call to Yandex
         try {
-            properties.load(new FileInputStream(apiKeysLocation));
-        } catch (IOException e) {
-            throw new YandexApiKeyNotFoundException(apiKeysLocation, e);
+            return translationRequests.execute(cacheKey, () -> {
+                String cachedTranslation = translationsCache.get(cacheKey, String.class);
+                return cachedTranslation != null ? cachedTranslation :
+                        awaitTranslations(Collections.singletonList(text), fromLanguageCode, toLanguageCode, Priority.INTERACTIVE, timeout)
+                                .get(0);
+            });
+        } catch (YandexApiKeyNotFoundException | TranslationUnavailableException | RuntimeException e) {
+            throw e;
+        } catch (TimeoutException e) {
+            throw new TranslationUnavailableException("Yandex is too slow", e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Translates several texts from one language to another. Cached translations are returned straight away, and the rest are packed
+     * into as few calls to Yandex as the batch limits allow.
+     *
+     * @param texts            - the texts to translate. Null and empty texts are returned as they are
+     * @param fromLanguageCode - A 2 character language code to translate the texts from
+     * @param toLanguageCode   - A 2 character language code to translate the texts to
+     * @return - the translated texts, in the same order
+     * @throws YandexApiKeyNotFoundException   - thrown if the Yandex API key cannot be located
+     * @throws TranslationUnavailableException - thrown if any of the texts couldn't be translated in time
+     * @throws TranslationRejectedException    - thrown if Yandex refused the translation, such as for a language it doesn't support
+     */
+    @Override
+    public List<String> translateAll(List<String> texts, String fromLanguageCode, String toLanguageCode)
+            throws YandexApiKeyNotFoundException, TranslationUnavailableException {
+        List<String> translations = new ArrayList<>(texts.size());
+        Set<String> misses = new LinkedHashSet<>();
+        for (String text : texts) {
+            String translation = text == null || text.isEmpty() ? text :
+                    translationsCache.get(getCacheKey(text, fromLanguageCode, toLanguageCode), String.class);
+            translations.add(translation);
+            if (translation == null && text != null) {
+                misses.add(text);
+            }
+        }
+        if (misses.isEmpty()) {
+            return translations;
+        }
+
+        List<String> missedTexts = new ArrayList<>(misses);
+        List<String> missedTranslations = awaitTranslations(missedTexts, fromLanguageCode, toLanguageCode, Priority.INTERACTIVE, timeout);
+        Map<String, String> translatedTexts = new HashMap<>();
+        for (int i = 0; i < missedTexts.size(); i++) {
+            translatedTexts.put(missedTexts.get(i), missedTranslations.get(i));
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            if (translations.get(i) == null && texts.get(i) != null) {
+                translations.set(i, translatedTexts.get(texts.get(i)));
+            }
+        }
+
+        return translations;
+    }
+
+    /**
+     * Translates several texts ahead of the requests for them. The texts that aren't cached yet are sent to Yandex in the background
+     * lane, and this waits for them up to the pre-translation timeout, which is longer than the translation timeout since no user is
+     * waiting on them, but still bounded so a stuck Yandex call cannot hold the scheduler thread running the pre-translations.
+     *
+     * @param texts            - the texts to translate
+     * @param fromLanguageCode - A 2 character language code to translate the texts from
+     * @param toLanguageCode   - A 2 character language code to translate the texts to
+     * @return - the number of texts that weren't cached yet and had to be sent to Yandex
+     * @throws YandexApiKeyNotFoundException   - thrown if the Yandex API key cannot be located
+     * @throws TranslationUnavailableException - thrown if Yandex failed, didn't answer within the pre-translation timeout, or the
+     *                                         bulkhead or the circuit breaker rejected the call
+     * @throws TranslationRejectedException    - thrown if Yandex refused the translation, such as for a language it doesn't support
+     */
+    @Override
+    public int pretranslate(List<String> texts, String fromLanguageCode, String toLanguageCode) throws YandexApiKeyNotFoundException,
+            TranslationUnavailableException {
+        Set<String> misses = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text != null && !text.isEmpty() && translationsCache.get(getCacheKey(text, fromLanguageCode, toLanguageCode)) == null) {
+                misses.add(text);
+            }
         }
 
-        YTranslateApiImpl yTranslateApi = new YTranslateApiImpl(properties.get(yandexKey).toString());
+        if (!misses.isEmpty()) {
+            awaitTranslations(new ArrayList<>(misses), fromLanguageCode, toLanguageCode, Priority.BACKGROUND, pretranslationTimeout);
+        }
+        return misses.size();
+    }
+
+    /**
+     * Translates texts on the bulkhead, behind the circuit breaker, waiting for them up to a timeout. The texts are handed to the
+     * batcher, which packs them with the other texts waiting to be translated into the same language. Translations that time out carry
+     * on in the background, so they still end up in the translations cache for the next caller.
+     *
+     * @param texts            - the texts to translate
+     * @param fromLanguageCode - the language code to translate the texts from
+     * @param toLanguageCode   - the language code to translate the texts to
+     * @param priority         - whether a user is waiting on the translations
+     * @param timeout          - how long to wait for the translations
+     * @return - the translated texts, in the same order
+     * @throws YandexApiKeyNotFoundException   - thrown if the Yandex API key cannot be located
+     * @throws TranslationUnavailableException - thrown if any of the translations failed, timed out or was rejected by the bulkhead or
+     *                                         the circuit breaker
+     * @throws TranslationRejectedException    - thrown if Yandex refused the translations, which doesn't count as one of its failures
+     */
+    private List<String> awaitTranslations(List<String> texts, String fromLanguageCode, String toLanguageCode, Priority priority,
+                                           Duration timeout) throws YandexApiKeyNotFoundException, TranslationUnavailableException {
+        //The key is read again when the batch is sent, this makes a missing key fail straight away with the right exception
+        apiKeyProvider.getYandexApiKey();
+        if (!circuitBreaker.tryAcquire()) {
+            throw new TranslationUnavailableException("Yandex keeps failing", null);
+        }
 
-        return yTranslateApi.translationApi().translate(text, new Direction() {
-            @Override
-            public Optional<Language> source() {
-                return Optional.of(Language.of(fromLanguageCode));
+        List<CompletableFuture<String>> futures = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            futures.add(batcher.submit(text, fromLanguageCode, toLanguageCode, priority));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            List<String> translations = new ArrayList<>(texts.size());
+            for (CompletableFuture<String> future : futures) {
+                translations.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            circuitBreaker.onSuccess();
+            return translations;
+        } catch (TimeoutException e) {
+            //Background batches wait for a free slot in the batcher before they are even sent, so their timeouts say little about Yandex
+            if (priority == Priority.BACKGROUND) {
+                circuitBreaker.release();
+            } else {
+                circuitBreaker.onFailure();
             }
+            LOGGER.warn("Yandex didn't translate {} descriptions within {} ms", texts.size(), timeout.toMillis());
+            throw new TranslationUnavailableException("Yandex is too slow", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                circuitBreaker.release();
+                throw new TranslationUnavailableException("too many translations are in progress", e.getCause());
+            }
+            if (e.getCause() instanceof TranslationRejectedException) {
+                circuitBreaker.release();
+                throw (TranslationRejectedException) e.getCause();
+            }
+            circuitBreaker.onFailure();
+            LOGGER.warn("Yandex was unable to translate {} descriptions", texts.size(), e.getCause());
+            throw new TranslationUnavailableException("Yandex failed", e.getCause());
+        } catch (InterruptedException e) {
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw new TranslationUnavailableException("the translation was interrupted", e);
+        }
+    }
+
+    /**
+     * Translates a batch of texts with a single call to the Yandex API, which accepts several texts per call, and stores the
+     * translations in the translations cache
+     *
+     * @param texts            - the texts to translate
+     * @param fromLanguageCode - the language code to translate the texts from
+     * @param toLanguageCode   - the language code to translate the texts to
+     * @param priority         - whether a user is waiting on the translations
+     * @return - the translated texts, in the same order
+     * @throws YandexApiKeyNotFoundException - thrown if the Yandex API key cannot be located
+     * @throws TranslationRejectedException  - thrown if Yandex answered with a 4xx or a 501, such as for a language it doesn't support
+     * @throws UpstreamUnavailableException  - thrown if Yandex kept answering with any other error
+     */
+    private List<String> fetchTranslations(List<String> texts, String fromLanguageCode, String toLanguageCode, Priority priority)
+            throws YandexApiKeyNotFoundException {
+        String yandexKey = apiKeyProvider.getYandexApiKey();
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        texts.forEach(text -> form.add(TEXT, text));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
-            @Override
-            public Language target() {
-                return Language.of(toLanguageCode);
+        //The texts are sent in the body, since descriptions can be too long for a query string. Retries stop at the timeout of the
+        // caller, since nobody waits for the translation past it and the bulkhead thread is better spent on other translations
+        Duration deadline = priority == Priority.BACKGROUND ? pretranslationTimeout : timeout;
+        JsonNode response;
+        try {
+            response = upstreamScheduler.execute(Upstream.YANDEX, priority, deadline,
+                    () -> restTemplate.postForObject(EXTERNAL_YANDEX_API + "?key={key}&lang={from}-{to}", new HttpEntity<>(form, headers),
+                            JsonNode.class, yandexKey, fromLanguageCode, toLanguageCode));
+        } catch (HttpStatusCodeException e) {
+            //The scheduler retries every other error, so this is Yandex refusing the texts or the languages rather than failing
+            if (e.getRawStatusCode() < HttpStatus.INTERNAL_SERVER_ERROR.value()
+                    || e.getRawStatusCode() == HttpStatus.NOT_IMPLEMENTED.value()) {
+                throw new TranslationRejectedException(fromLanguageCode, toLanguageCode, e);
             }
-        }).text();
+            throw new UpstreamUnavailableException(Upstream.YANDEX.getName(), e);
+        }
+
+        JsonNode translatedTexts = response.path(TEXT);
+        if (translatedTexts.size() != texts.size()) {
+            throw new IllegalStateException("Yandex returned " + translatedTexts.size() + " translations for " + texts.size() + " texts");
+        }
+        List<String> translations = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            String translation = translatedTexts.path(i).asText();
+            translationsCache.put(getCacheKey(texts.get(i), fromLanguageCode, toLanguageCode), translation);
+            translations.add(translation);
+        }
+
+        return translations;
+    }
+
+    /**
+     * @return - the state of the circuit breaker in front of Yandex
+     */
+    @VisibleForTesting
+    protected CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.shutdown();
+        bulkhead.shutdownNow();
+    }
+
+    /**
+     * Builds the translations cache key. The text is digested so long descriptions don't have to be held twice in memory.
+     *
+     * @param text             - the text to translate
+     * @param fromLanguageCode - the language code to translate the text from
+     * @param toLanguageCode   - the language code to translate the text to
+     * @return - the cache key
+     */
+    protected static String getCacheKey(String text, String fromLanguageCode, String toLanguageCode) {
+        return DigestUtils.sha256Hex(text) + ":" + fromLanguageCode + ":" + toLanguageCode;
     }
 }
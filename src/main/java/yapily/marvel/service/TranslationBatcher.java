@@ -0,0 +1,255 @@
+package yapily.marvel.service;
+
+import yapily.marvel.service.UpstreamScheduler.Priority;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs the texts waiting to be translated into the same language into a single call to the Yandex API. The first text of a batch opens
+ * a short window, and the batch is sent once the window is over or it reaches its maximum number of texts or characters, whichever
+ * comes first. Each text gets a future that completes with its own translation.
+ * <p>
+ * Only a few background batches are handed to the executor at a time. The others wait here until one of them is done, so pre-translations
+ * never fill the executor's threads and queue and leave the translations users are waiting on to be rejected.
+ */
+public class TranslationBatcher {
+    private final int maxTexts;
+    private final int maxChars;
+    private final int maxBackgroundBatches;
+    private final Duration window;
+    private final Executor executor;
+    private final Translator translator;
+    private final ScheduledExecutorService timer;
+
+    private final Map<BatchKey, Batch> pending = new HashMap<>();
+
+    private final Deque<Batch> waitingBackgroundBatches = new ArrayDeque<>();
+
+    private int backgroundBatches;
+
+    /**
+     * @param maxTexts             - the maximum number of texts in a batch
+     * @param maxChars             - the maximum number of characters in a batch. A text longer than that is sent in a batch of its own
+     * @param maxBackgroundBatches - the maximum number of background batches handed to the executor at a time
+     * @param window               - how long a batch waits for more texts before it is sent
+     * @param executor             - runs the calls to Yandex
+     * @param translator           - translates a batch of texts with a single call to Yandex
+     */
+    public TranslationBatcher(int maxTexts, int maxChars, int maxBackgroundBatches, Duration window, Executor executor,
+                              Translator translator) {
+        this.maxTexts = maxTexts;
+        this.maxChars = maxChars;
+        this.maxBackgroundBatches = maxBackgroundBatches;
+        this.window = window;
+        this.executor = executor;
+        this.translator = translator;
+
+        ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "yandex-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutor.setRemoveOnCancelPolicy(true);
+        this.timer = scheduledExecutor;
+    }
+
+    /**
+     * Adds a text to the pending batch for its languages and priority
+     *
+     * @param text             - the text to translate
+     * @param fromLanguageCode - the language code to translate the text from
+     * @param toLanguageCode   - the language code to translate the text to
+     * @param priority         - whether a user is waiting on the translation
+     * @return - a future that completes with the translation, or with the exception of the call to Yandex
+     */
+    public CompletableFuture<String> submit(String text, String fromLanguageCode, String toLanguageCode, Priority priority) {
+        BatchKey key = new BatchKey(fromLanguageCode, toLanguageCode, priority);
+        CompletableFuture<String> translation = new CompletableFuture<>();
+        Batch fullBatch = null;
+        Batch sentBatch = null;
+
+        synchronized (this) {
+            Batch batch = pending.get(key);
+            if (batch != null && !fits(batch, text)) {
+                pending.remove(key);
+                fullBatch = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(key);
+                pending.put(key, batch);
+                Batch openedBatch = batch;
+                batch.timeout = timer.schedule(() -> sendOnTimeout(openedBatch), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.add(text, translation);
+            if (batch.texts.size() >= maxTexts || batch.chars >= maxChars) {
+                pending.remove(key);
+                sentBatch = batch;
+            }
+        }
+
+        send(fullBatch);
+        send(sentBatch);
+        return translation;
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private boolean fits(Batch batch, String text) {
+        return batch.texts.size() < maxTexts && (long) batch.chars + text.length() <= maxChars;
+    }
+
+    private void sendOnTimeout(Batch batch) {
+        synchronized (this) {
+            if (!pending.remove(batch.key, batch)) {
+                //The batch filled up and was sent before its window was over
+                return;
+            }
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        if (batch == null) {
+            return;
+        }
+        if (batch.timeout != null) {
+            batch.timeout.cancel(false);
+        }
+
+        if (batch.key.priority == Priority.BACKGROUND) {
+            synchronized (this) {
+                if (backgroundBatches >= maxBackgroundBatches) {
+                    waitingBackgroundBatches.add(batch);
+                    return;
+                }
+                backgroundBatches++;
+            }
+        }
+        execute(batch);
+    }
+
+    private void execute(Batch batch) {
+        try {
+            executor.execute(() -> translate(batch));
+        } catch (RejectedExecutionException e) {
+            batch.translations.forEach(translation -> translation.completeExceptionally(e));
+            onBatchDone(batch);
+        }
+    }
+
+    /**
+     * Hands the next waiting background batch to the executor once a background batch is done
+     */
+    private void onBatchDone(Batch batch) {
+        if (batch.key.priority != Priority.BACKGROUND) {
+            return;
+        }
+
+        Batch nextBatch;
+        synchronized (this) {
+            nextBatch = waitingBackgroundBatches.poll();
+            if (nextBatch == null) {
+                backgroundBatches--;
+                return;
+            }
+        }
+        execute(nextBatch);
+    }
+
+    private void translate(Batch batch) {
+        try {
+            List<String> translatedTexts = translator.translate(batch.texts, batch.key.fromLanguageCode, batch.key.toLanguageCode,
+                    batch.key.priority);
+            if (translatedTexts.size() != batch.texts.size()) {
+                throw new IllegalStateException("Yandex returned " + translatedTexts.size() + " translations for " + batch.texts.size() +
+                        " texts");
+            }
+            for (int i = 0; i < translatedTexts.size(); i++) {
+                batch.translations.get(i).complete(translatedTexts.get(i));
+            }
+        } catch (Exception | Error e) {
+            batch.translations.forEach(translation -> translation.completeExceptionally(e));
+        } finally {
+            onBatchDone(batch);
+        }
+    }
+
+    /**
+     * Translates a batch of texts with a single call to Yandex
+     */
+    @FunctionalInterface
+    public interface Translator {
+        /**
+         * @return - the translations, in the same order as the texts
+         */
+        List<String> translate(List<String> texts, String fromLanguageCode, String toLanguageCode, Priority priority) throws Exception;
+    }
+
+    private static class Batch {
+        private final BatchKey key;
+        private final List<String> texts = new ArrayList<>();
+        private final List<CompletableFuture<String>> translations = new ArrayList<>();
+        private int chars;
+        private ScheduledFuture<?> timeout;
+
+        Batch(BatchKey key) {
+            this.key = key;
+        }
+
+        void add(String text, CompletableFuture<String> translation) {
+            texts.add(text);
+            translations.add(translation);
+            chars += text.length();
+        }
+    }
+
+    /**
+     * Texts are only batched with texts going between the same languages in the same priority lane
+     */
+    private static class BatchKey {
+        private final String fromLanguageCode;
+        private final String toLanguageCode;
+        private final Priority priority;
+
+        BatchKey(String fromLanguageCode, String toLanguageCode, Priority priority) {
+            this.fromLanguageCode = fromLanguageCode;
+            this.toLanguageCode = toLanguageCode;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BatchKey batchKey = (BatchKey) o;
+            return fromLanguageCode.equals(batchKey.fromLanguageCode) && toLanguageCode.equals(batchKey.toLanguageCode)
+                    && priority == batchKey.priority;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fromLanguageCode, toLanguageCode, priority);
+        }
+    }
+}
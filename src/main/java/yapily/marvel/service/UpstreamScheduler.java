@@ -0,0 +1,269 @@
+package yapily.marvel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import yapily.marvel.exceptions.UpstreamUnavailableException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the calls to the Marvel and Yandex APIs so they stay within their quotas. Each API has its own {@link TokenBucket}, and every
+ * call takes a token before it goes out. Interactive calls, made while a user is waiting, take the next token ahead of background calls
+ * such as the crawls that refresh the local mirror, so a crawl cannot starve them of quota.
+ * <p>
+ * Calls answered with a 429 or a 5xx are retried with an exponential backoff, which honours the Retry-After header when there is one. A
+ * 429 also pauses every other call to the same API until the backoff is over. A call is given up rather than retried early when the API
+ * asks to wait longer than the maximum backoff. Any other 4xx, and a 501, are about the call itself rather than the health of the API,
+ * and would be answered the same way again, so they are never retried. Interactive calls also have a deadline: they are given up as
+ * soon as their next retry, or the wait for a token, would end past it, so a failing API never holds a request thread for the whole
+ * backoff.
+ * <p>
+ * Every attempt is timed in the upstream.requests timer, tagged with the API and the status it answered, and every retry is counted in
+ * the upstream.retries counter.
+ */
+@Component
+public class UpstreamScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamScheduler.class);
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+    private static final int NOT_IMPLEMENTED = 501;
+    private static final String SUCCESS_STATUS = "2xx";
+    private static final String ERROR_STATUS = "ERROR";
+
+    private final Map<Upstream, TokenBucket> buckets = new EnumMap<>(Upstream.class);
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxRetries;
+    private final Duration interactiveDeadline;
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamScheduler(MeterRegistry meterRegistry,
+                             @Value("${marvel.rate-limit.permits-per-second}") double marvelPermitsPerSecond,
+                             @Value("${marvel.rate-limit.burst}") int marvelBurst,
+                             @Value("${yandex.rate-limit.permits-per-second}") double yandexPermitsPerSecond,
+                             @Value("${yandex.rate-limit.burst}") int yandexBurst,
+                             @Value("${upstream.backoff.initial}") Duration initialBackoff,
+                             @Value("${upstream.backoff.max}") Duration maxBackoff,
+                             @Value("${upstream.backoff.max-retries}") int maxRetries,
+                             @Value("${upstream.interactive.deadline}") Duration interactiveDeadline) {
+        this.buckets.put(Upstream.MARVEL, new TokenBucket(marvelPermitsPerSecond, marvelBurst));
+        this.buckets.put(Upstream.YANDEX, new TokenBucket(yandexPermitsPerSecond, yandexBurst));
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxRetries = maxRetries;
+        this.interactiveDeadline = interactiveDeadline;
+        this.meterRegistry = meterRegistry;
+
+        buckets.forEach((upstream, bucket) -> Gauge.builder("upstream.rate-limit.tokens", bucket, TokenBucket::getAvailableTokens)
+                .description("Tokens left in the rate limiter of an upstream API")
+                .tag("upstream", upstream.getName())
+                .register(meterRegistry));
+    }
+
+    /**
+     * Makes a call to the Marvel or Yandex API once a token is available, retrying it while the API answers with a 429 or a 5xx other
+     * than 501. Interactive calls are given up once they reach the interactive deadline, background calls once they run out of retries.
+     *
+     * @param upstream - the API being called
+     * @param priority - whether a user is waiting on the call
+     * @param call     - makes the call. It is made again on every retry, so anything that has to be fresh, like the Marvel API
+     *                 timestamp, should be computed inside it
+     * @param <T>      - the type of the response
+     * @param <E>      - the type of the exception thrown by the call
+     * @return - the response
+     * @throws E                            - the exception thrown by the call, including any {@link HttpStatusCodeException} that is
+     *                                      not retried
+     * @throws UpstreamUnavailableException - thrown if the API still fails after the last retry, or the call reached its deadline
+     */
+    public <T, E extends Exception> T execute(Upstream upstream, Priority priority, Call<T, E> call) throws E {
+        return execute(upstream, priority, priority == Priority.INTERACTIVE ? interactiveDeadline : null, call);
+    }
+
+    /**
+     * Makes a call to the Marvel or Yandex API once a token is available, retrying it while the API answers with a 429 or a 5xx other
+     * than 501 until the deadline
+     *
+     * @param upstream - the API being called
+     * @param priority - whether a user is waiting on the call
+     * @param deadline - how long the call may take, waiting for tokens and backoffs included, or null to only stop after the last retry
+     * @param call     - makes the call. It is made again on every retry, so anything that has to be fresh, like the Marvel API
+     *                 timestamp, should be computed inside it
+     * @param <T>      - the type of the response
+     * @param <E>      - the type of the exception thrown by the call
+     * @return - the response
+     * @throws E                            - the exception thrown by the call, including any {@link HttpStatusCodeException} that is
+     *                                      not retried
+     * @throws UpstreamUnavailableException - thrown if the API still fails after the last retry, or the call reached its deadline
+     */
+    public <T, E extends Exception> T execute(Upstream upstream, Priority priority, Duration deadline, Call<T, E> call) throws E {
+        TokenBucket bucket = buckets.get(upstream);
+        long deadlineNanos = deadline == null ? Long.MAX_VALUE : deadline.toNanos();
+        long callStart = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            acquire(upstream, bucket, priority, deadlineNanos - (System.nanoTime() - callStart));
+            long start = System.nanoTime();
+            try {
+                T response = call.execute();
+                record(upstream, SUCCESS_STATUS, start);
+                return response;
+            } catch (HttpStatusCodeException e) {
+                int status = e.getRawStatusCode();
+                record(upstream, String.valueOf(status), start);
+                if (!isRetryable(status)) {
+                    throw e;
+                }
+
+                long retryAfterMillis = getRetryAfterMillis(e.getResponseHeaders());
+                if (status == TOO_MANY_REQUESTS && retryAfterMillis > 0) {
+                    //Every other call has to wait as long as the API asked, even when this one is given up
+                    bucket.pause(retryAfterMillis);
+                }
+                if (attempt >= maxRetries || retryAfterMillis > maxBackoff.toMillis()) {
+                    throw new UpstreamUnavailableException(upstream.getName(), e);
+                }
+
+                long backoffMillis = Math.max(getBackoffMillis(attempt), retryAfterMillis);
+                long elapsedNanos = System.nanoTime() - callStart;
+                if (deadlineNanos - elapsedNanos < TimeUnit.MILLISECONDS.toNanos(backoffMillis)) {
+                    throw new UpstreamUnavailableException(upstream.getName(), e);
+                }
+
+                LOGGER.warn("The {} API answered {}, retrying in {} ms", upstream.getName(), status, backoffMillis);
+                meterRegistry.counter("upstream.retries", "upstream", upstream.getName(), "status", String.valueOf(status)).increment();
+                if (status == TOO_MANY_REQUESTS) {
+                    bucket.pause(backoffMillis);
+                } else {
+                    sleep(upstream, backoffMillis, e);
+                }
+            } catch (Exception e) {
+                //Connection failures and timeouts have no status
+                record(upstream, ERROR_STATUS, start);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a call answered with a status is worth retrying: a 429 or a 5xx, unless it is a 501, since the API won't start
+     * supporting the call by the next retry
+     */
+    private static boolean isRetryable(int status) {
+        return status == TOO_MANY_REQUESTS || (status >= SERVER_ERROR && status != NOT_IMPLEMENTED);
+    }
+
+    /**
+     * Records how long an attempt took, tagged with the API and the status it answered
+     */
+    private void record(Upstream upstream, String status, long start) {
+        Timer.builder("upstream.requests")
+                .description("Calls to the upstream APIs, including the ones that are retried")
+                .tag("upstream", upstream.getName())
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets how long to wait before a retry: an exponential backoff with jitter, so concurrent callers don't all retry at once, capped at
+     * the maximum backoff
+     */
+    private long getBackoffMillis(int attempt) {
+        long backoff = Math.min(initialBackoff.toMillis() << Math.min(attempt, 30), maxBackoff.toMillis());
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Gets how long the API asked to wait for in the Retry-After header
+     *
+     * @return - the wait in milliseconds, or 0 if the API didn't say
+     */
+    private static long getRetryAfterMillis(HttpHeaders headers) {
+        String retryAfter = headers == null ? null : headers.getFirst(RETRY_AFTER);
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(Long.parseLong(retryAfter.trim()), 0));
+        } catch (NumberFormatException e) {
+            //Retry-After can also be an HTTP date, the exponential backoff is used for those
+            return 0;
+        }
+    }
+
+    private static void acquire(Upstream upstream, TokenBucket bucket, Priority priority, long timeoutNanos) {
+        try {
+            if (!bucket.tryAcquire(priority == Priority.INTERACTIVE, timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new UpstreamUnavailableException(upstream.getName(), null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException(upstream.getName(), e);
+        }
+    }
+
+    private static void sleep(Upstream upstream, long millis, Exception cause) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException(upstream.getName(), cause);
+        }
+    }
+
+    /**
+     * The APIs called by the application, each with its own quota
+     */
+    public enum Upstream {
+        MARVEL("Marvel"),
+        YANDEX("Yandex");
+
+        private final String name;
+
+        Upstream(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * The lanes calls wait in for a token
+     */
+    public enum Priority {
+        /**
+         * Calls made while a user is waiting, which are served first
+         */
+        INTERACTIVE,
+        /**
+         * Calls made in the background, like crawls and refreshes, which only get the tokens no interactive call is waiting for
+         */
+        BACKGROUND
+    }
+
+    /**
+     * A call to the Marvel or Yandex API
+     *
+     * @param <T> - the type of the response
+     * @param <E> - the type of the exception thrown by the call
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T execute() throws E;
+    }
+}
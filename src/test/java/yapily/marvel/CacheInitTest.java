@@ -0,0 +1,79 @@
+package yapily.marvel;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.TaskScheduler;
+import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.service.MarvelService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheInitTest {
+    private final MarvelService marvelService = mock(MarvelService.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final CacheInit cacheInit = new CacheInit(marvelService, taskScheduler, Duration.ofSeconds(1), Duration.ofMinutes(1));
+    private final CharacterIdsHealthIndicator healthIndicator = new CharacterIdsHealthIndicator(cacheInit);
+
+    @Test
+    void warmUp_will_report_up_once_the_cache_is_warm() throws Exception {
+        when(marvelService.getCharactersIds()).thenReturn(new CharacterIds(Collections.singletonList(100L)));
+
+        Assertions.assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        cacheInit.warmUp();
+
+        Assertions.assertThat(cacheInit.isWarm()).isTrue();
+        Assertions.assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void warmUp_will_retry_when_it_fails() throws Exception {
+        when(marvelService.getCharactersIds()).thenThrow(MarvelApiKeyNotFoundException.class);
+
+        cacheInit.warmUp();
+
+        Assertions.assertThat(cacheInit.isWarm()).isFalse();
+        Assertions.assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void onApplicationEvent_will_restore_the_snapshot_and_revalidate_it_in_the_background() {
+        when(marvelService.restoreCharactersIds()).thenReturn(new CharacterIds(Collections.singletonList(100L)));
+
+        cacheInit.onApplicationEvent(null);
+
+        Assertions.assertThat(cacheInit.isWarm()).isTrue();
+        Assertions.assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void onApplicationEvent_will_warm_up_without_a_snapshot() throws Exception {
+        cacheInit.onApplicationEvent(null);
+
+        Assertions.assertThat(cacheInit.isWarm()).isFalse();
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        verify(marvelService, never()).getCharactersIds();
+    }
+
+    @Test
+    void getBackoff_will_double_up_to_the_maximum() {
+        Assertions.assertThat(cacheInit.getBackoff(1)).isEqualTo(Duration.ofSeconds(1));
+        Assertions.assertThat(cacheInit.getBackoff(2)).isEqualTo(Duration.ofSeconds(2));
+        Assertions.assertThat(cacheInit.getBackoff(4)).isEqualTo(Duration.ofSeconds(8));
+        Assertions.assertThat(cacheInit.getBackoff(30)).isEqualTo(Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,62 @@
+package yapily.marvel;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.service.MarvelService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CharacterIdsRefresherTest {
+    private final MarvelService marvelService = mock(MarvelService.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final CharacterIdsRefresher refresher = new CharacterIdsRefresher(marvelService, taskScheduler, Duration.ofHours(1),
+            Duration.ofMinutes(5), Duration.ofDays(1));
+
+    @Test
+    void refresh_will_record_the_refresh_and_schedule_the_next_one() throws Exception {
+        when(marvelService.refreshCharactersIds()).thenReturn(new CharacterIds(Arrays.asList(100L, 200L)));
+
+        refresher.scheduleFirstRefresh();
+        refresher.refresh();
+
+        Assertions.assertThat(refresher.getLastRefresh()).isNotNull();
+        Assertions.assertThat(refresher.getLastRefreshDuration()).isNotNull();
+        verify(marvelService, never()).resyncCharactersIds();
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void refresh_will_resync_everything_once_the_full_sync_interval_has_passed() throws Exception {
+        CharacterIdsRefresher refresher = new CharacterIdsRefresher(marvelService, taskScheduler, Duration.ofHours(1),
+                Duration.ofMinutes(5), Duration.ZERO);
+        when(marvelService.resyncCharactersIds()).thenReturn(new CharacterIds(Arrays.asList(100L, 200L)));
+
+        refresher.scheduleFirstRefresh();
+        refresher.refresh();
+
+        verify(marvelService, times(1)).resyncCharactersIds();
+        verify(marvelService, never()).refreshCharactersIds();
+    }
+
+    @Test
+    void refresh_will_schedule_the_next_one_even_if_it_fails() throws Exception {
+        when(marvelService.resyncCharactersIds()).thenThrow(MarvelApiKeyNotFoundException.class);
+
+        refresher.refresh();
+
+        Assertions.assertThat(refresher.getLastRefresh()).isNull();
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+}
@@ -0,0 +1,82 @@
+package yapily.marvel;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import yapily.marvel.exceptions.TranslationUnavailableException;
+import yapily.marvel.model.MarvelCharacter;
+import yapily.marvel.service.HotCharacterTracker;
+import yapily.marvel.service.MarvelService;
+import yapily.marvel.service.TranslateService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TranslationPrewarmerTest {
+    private final MarvelService marvelService = mock(MarvelService.class);
+    private final TranslateService translateService = mock(TranslateService.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final HotCharacterTracker hotCharacterTracker = new HotCharacterTracker(100, "");
+    private final TranslationPrewarmer prewarmer = new TranslationPrewarmer(marvelService, translateService, hotCharacterTracker,
+            taskScheduler, new String[]{"de", "fr"}, 10, Duration.ofMinutes(10), Duration.ofMinutes(1));
+
+    @Test
+    void prewarm_will_translate_the_most_requested_descriptions_into_every_language() throws Exception {
+        hotCharacterTracker.record(100L);
+        hotCharacterTracker.record(200L);
+        hotCharacterTracker.record(200L);
+        when(marvelService.peekCharacter(100L)).thenReturn(new MarvelCharacter(100L, "Hulk", "Angry", null, null));
+        when(marvelService.peekCharacter(200L)).thenReturn(new MarvelCharacter(200L, "Thor", "Mighty", null, null));
+
+        prewarmer.prewarm();
+
+        verify(translateService).pretranslate(Arrays.asList("Mighty", "Angry"), "en", "de");
+        verify(translateService).pretranslate(Arrays.asList("Mighty", "Angry"), "en", "fr");
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void prewarm_will_skip_characters_without_a_description() throws Exception {
+        hotCharacterTracker.record(100L);
+        when(marvelService.peekCharacter(100L)).thenReturn(new MarvelCharacter(100L, "Hulk", "", null, null));
+
+        prewarmer.prewarm();
+
+        verify(translateService, never()).pretranslate(anyList(), anyString(), anyString());
+    }
+
+    @Test
+    void prewarm_will_stop_and_schedule_the_next_run_if_the_translation_is_unavailable() throws Exception {
+        hotCharacterTracker.record(100L);
+        when(marvelService.peekCharacter(100L)).thenReturn(new MarvelCharacter(100L, "Hulk", "Angry", null, null));
+        when(translateService.pretranslate(anyList(), anyString(), anyString()))
+                .thenThrow(new TranslationUnavailableException("the circuit breaker is open", null));
+
+        prewarmer.prewarm();
+
+        verify(translateService, times(1)).pretranslate(Collections.singletonList("Angry"), "en", "de");
+        verify(translateService, never()).pretranslate(anyList(), anyString(), eq("fr"));
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void scheduleFirstPrewarm_will_do_nothing_without_languages() {
+        TranslationPrewarmer prewarmer = new TranslationPrewarmer(marvelService, translateService, hotCharacterTracker, taskScheduler,
+                new String[0], 10, Duration.ofMinutes(10), Duration.ofMinutes(1));
+
+        prewarmer.scheduleFirstPrewarm();
+
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+}
@@ -1,28 +1,56 @@
 package yapily.marvel.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import yapily.marvel.JacksonConfig;
+import yapily.marvel.exceptions.CharactersNotLoadedException;
 import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
 import yapily.marvel.exceptions.MissingJsonNodeException;
+import yapily.marvel.exceptions.TooManyCharacterIdsException;
 import yapily.marvel.exceptions.UnableToProcessJsonException;
 import yapily.marvel.exceptions.YandexApiKeyNotFoundException;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.model.CharacterResult;
 import yapily.marvel.model.MarvelCharacter;
 import yapily.marvel.service.MarvelService;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
+@Import(JacksonConfig.class)
 class MarvelControllerTest {
+    private static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -35,11 +63,86 @@ class MarvelControllerTest {
         characterIds.add(100L);
         characterIds.add(200L);
 
-        when(marvelService.getCharactersIds()).thenReturn(characterIds);
+        when(marvelService.getCharactersIds()).thenReturn(new CharacterIds(characterIds));
         this.mockMvc.perform(get("/characters")).andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=300, stale-while-revalidate=3600"))
                 .andExpect(content().string("[100,200]"));
     }
 
+    @Test
+    public void getCharacters_should_return_not_modified_for_the_same_version() throws Exception {
+        CharacterIds characterIds = new CharacterIds(Arrays.asList(100L, 200L));
+
+        when(marvelService.getCharactersIds()).thenReturn(characterIds);
+        String eTag = this.mockMvc.perform(get("/characters")).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/characters").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void getCharacters_should_not_share_the_etag_between_representations() throws Exception {
+        when(marvelService.getCharactersIds()).thenReturn(new CharacterIds(Arrays.asList(100L, 200L, 300L)));
+
+        String eTag = this.mockMvc.perform(get("/characters")).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String pageETag = this.mockMvc.perform(get("/characters?limit=2")).andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Assertions.assertThat(pageETag).isNotEqualTo(eTag);
+        this.mockMvc.perform(get("/characters?limit=2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/characters?limit=1").header(HttpHeaders.IF_NONE_MATCH, pageETag))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/characters").accept(SMILE_MEDIA_TYPE).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getCharactersPage_should_return_ok() throws Exception {
+        when(marvelService.getCharactersIds()).thenReturn(new CharacterIds(Arrays.asList(100L, 200L, 300L, 400L, 500L)));
+
+        this.mockMvc.perform(get("/characters?offset=1&limit=2")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.offset").value(1))
+                .andExpect(jsonPath("$.ids").value(contains(200, 300)))
+                .andExpect(jsonPath("$.next").value(3));
+    }
+
+    @Test
+    public void getCharactersPage_should_start_after_the_cursor() throws Exception {
+        when(marvelService.getCharactersIds()).thenReturn(new CharacterIds(Arrays.asList(100L, 200L, 300L, 400L, 500L)));
+
+        this.mockMvc.perform(get("/characters?after=250&limit=2")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(2))
+                .andExpect(jsonPath("$.ids").value(contains(300, 400)));
+    }
+
+    @Test
+    public void getCharactersPage_should_reject_a_limit_lower_than_one() throws Exception {
+        when(marvelService.getCharactersIds()).thenReturn(new CharacterIds(Arrays.asList(100L, 200L)));
+
+        this.mockMvc.perform(get("/characters?limit=0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void streamCharacters_should_write_one_id_per_line() throws Exception {
+        when(marvelService.getCharactersIds()).thenReturn(new CharacterIds(Arrays.asList(100L, 200L)));
+
+        MvcResult result = this.mockMvc.perform(get("/characters").accept(MarvelController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+                .andExpect(content().contentType(MarvelController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string("100\n200\n"));
+    }
+
     @Test
     public void getCharacters_will_return_exception_if_no_api_key() throws Exception {
         List<Long> characterIds = new ArrayList<>();
@@ -87,6 +190,136 @@ class MarvelControllerTest {
                 .andExpect(content().string(objectMapper.writeValueAsString(marvelCharacter)));
     }
 
+    @Test
+    public void getCharacter_should_return_validators_and_not_modified_for_the_same_etag() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null,
+                "2014-04-29T14:18:17-0400");
+
+        when(marvelService.getCharacter(100L)).thenReturn(marvelCharacter);
+
+        String eTag = this.mockMvc.perform(get("/characters/100")).andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=600, stale-while-revalidate=86400"))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, 1398795497000L))
+                .andExpect(jsonPath("$.modified").doesNotExist())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/characters/100").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        this.mockMvc.perform(get("/characters/100?fields=name").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getCharacter_should_return_not_modified_since_the_last_modification() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null,
+                "2014-04-29T14:18:17-0400");
+
+        when(marvelService.getCharacter(100L)).thenReturn(marvelCharacter);
+
+        this.mockMvc.perform(get("/characters/100").header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 30 Apr 2014 00:00:00 GMT"))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getTranslatedCharacter_should_not_be_cached_if_the_translation_is_unavailable() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null,
+                "2014-04-29T14:18:17-0400", true);
+
+        when(marvelService.getTranslatedCharacter(100L, "de")).thenReturn(marvelCharacter);
+
+        this.mockMvc.perform(get("/characters/100?language=de")).andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    public void getCharacter_should_only_return_the_requested_fields() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman",
+                new MarvelCharacter.Thumbnail("http://i.annihil.us/u/prod/marvel/i/mg/3/20/5232158de5b16", "jpg"));
+
+        when(marvelService.getCharacter(100L)).thenReturn(marvelCharacter);
+
+        this.mockMvc.perform(get("/characters/100?fields=id,name")).andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":100,\"name\":\"SpiderMan\"}", true));
+    }
+
+    @Test
+    public void getCharacters_should_only_return_the_requested_fields_of_each_character() throws Exception {
+        List<CharacterResult> results = Arrays.asList(
+                CharacterResult.found(100L, new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null)),
+                CharacterResult.notFound(200L));
+
+        when(marvelService.getCharacters(Arrays.asList(100L, 200L), null)).thenReturn(results);
+
+        this.mockMvc.perform(get("/characters?ids=100,200&fields=name")).andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].character.name").value("SpiderMan"))
+                .andExpect(jsonPath("$[0].character.id").doesNotExist())
+                .andExpect(jsonPath("$[0].character.description").doesNotExist())
+                .andExpect(jsonPath("$[1].id").value(200));
+    }
+
+    @Test
+    public void getCharacter_should_return_smile_when_asked_for() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null);
+
+        when(marvelService.getCharacter(100L)).thenReturn(marvelCharacter);
+
+        byte[] body = this.mockMvc.perform(get("/characters/100").accept(SMILE_MEDIA_TYPE)).andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+        Assertions.assertThat(new ObjectMapper(new SmileFactory()).readTree(body).get("name").asText()).isEqualTo("SpiderMan");
+    }
+
+    @Test
+    public void getCharacter_should_project_the_fields_in_cbor() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null);
+
+        when(marvelService.getCharacter(100L)).thenReturn(marvelCharacter);
+
+        byte[] body = this.mockMvc.perform(get("/characters/100?fields=id,name").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode character = new ObjectMapper(new CBORFactory()).readTree(body);
+        Assertions.assertThat(character.get("name").asText()).isEqualTo("SpiderMan");
+        Assertions.assertThat(character.has("description")).isFalse();
+    }
+
+    @Test
+    public void searchCharacters_should_return_the_matches() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null);
+
+        when(marvelService.searchCharacters("spid", 5)).thenReturn(Collections.singletonList(marvelCharacter));
+
+        this.mockMvc.perform(get("/characters/search?q=spid&limit=5")).andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(100))
+                .andExpect(jsonPath("$[0].name").value("SpiderMan"));
+    }
+
+    @Test
+    public void searchCharacters_should_cap_the_limit() throws Exception {
+        when(marvelService.searchCharacters("spid", 1000)).thenReturn(Collections.emptyList());
+
+        this.mockMvc.perform(get("/characters/search?q=spid&limit=100000")).andExpect(status().isOk())
+                .andExpect(content().string("[]"));
+    }
+
+    @Test
+    public void searchCharacters_should_reject_a_limit_lower_than_one() throws Exception {
+        this.mockMvc.perform(get("/characters/search?q=spid&limit=0")).andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/characters/search?q=spid&limit=-1")).andExpect(status().isBadRequest());
+        verify(marvelService, never()).searchCharacters(any(), anyInt());
+    }
+
+    @Test
+    public void searchCharacters_will_return_service_unavailable_until_the_characters_are_loaded() throws Exception {
+        when(marvelService.searchCharacters("spid", 5)).thenThrow(new CharactersNotLoadedException());
+
+        this.mockMvc.perform(get("/characters/search?q=spid&limit=5")).andExpect(status().isServiceUnavailable())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL));
+    }
+
     @Test
     public void getCharacter_will_return_exception_if_no_marvel_api_key() throws Exception {
         MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman",
@@ -177,4 +410,74 @@ class MarvelControllerTest {
 
         this.mockMvc.perform(get("/characters/100?language=de")).andExpect(status().isUnprocessableEntity());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getCharactersByIds_should_return_ok() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman",
+                new MarvelCharacter.Thumbnail(
+                        "http://i.annihil.us/u/prod/marvel/i/mg/3/20/5232158de5b16", "jpg"));
+        List<CharacterResult> results = Arrays.asList(CharacterResult.found(100L, marvelCharacter), CharacterResult.notFound(200L));
+
+        when(marvelService.getCharacters(Arrays.asList(100L, 200L), null)).thenReturn(results);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        this.mockMvc.perform(get("/characters?ids=100,200")).andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    public void getCharactersByIds_should_only_return_an_etag() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(100L, "SpiderMan", "Our beloved Spiderman", null,
+                "2014-04-29T14:18:17-0400");
+        List<CharacterResult> results = Arrays.asList(CharacterResult.found(100L, marvelCharacter), CharacterResult.notFound(200L));
+
+        when(marvelService.getCharacters(Arrays.asList(100L, 200L), null)).thenReturn(results);
+
+        this.mockMvc.perform(get("/characters?ids=100,200")).andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+        this.mockMvc.perform(get("/characters?ids=100,200").header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 30 Apr 2014 00:00:00 GMT"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getCharactersBatch_should_return_ok() throws Exception {
+        List<CharacterResult> results = Arrays.asList(CharacterResult.notFound(100L), CharacterResult.notFound(200L));
+
+        when(marvelService.getCharacters(Arrays.asList(100L, 200L), "de")).thenReturn(results);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        this.mockMvc.perform(post("/characters/batch?language=de").contentType(MediaType.APPLICATION_JSON).content("[100,200]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    public void getCharactersBatch_will_return_bad_request_for_a_null_id() throws Exception {
+        this.mockMvc.perform(post("/characters/batch").contentType(MediaType.APPLICATION_JSON).content("[100,null]"))
+                .andExpect(status().isBadRequest());
+        verify(marvelService, never()).getCharacters(any(), any());
+    }
+
+    @Test
+    public void getCharactersBatch_will_return_bad_request_for_more_ids_than_a_page() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1001; id++) {
+            ids.add(id);
+        }
+
+        this.mockMvc.perform(post("/characters/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(ids)))
+                .andExpect(status().isBadRequest());
+        verify(marvelService, never()).getCharacters(any(), any());
+    }
+
+    @Test
+    public void getCharactersByIds_will_return_exception_if_too_many_ids() throws Exception {
+        when(marvelService.getCharacters(any(), any())).thenThrow(TooManyCharacterIdsException.class);
+
+        this.mockMvc.perform(get("/characters?ids=100,200")).andExpect(status().isBadRequest());
+    }
+}
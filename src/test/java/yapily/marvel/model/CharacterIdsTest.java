@@ -0,0 +1,84 @@
+package yapily.marvel.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class CharacterIdsTest {
+
+    @Test
+    void characterIds_will_be_serialised_as_an_array() throws IOException {
+        CharacterIds characterIds = new CharacterIds(Arrays.asList(1011334L, 1017100L));
+
+        Assertions.assertThat(new ObjectMapper().writeValueAsString(characterIds)).isEqualTo("[1011334,1017100]");
+    }
+
+    @Test
+    void characterIds_will_be_sorted() throws IOException {
+        CharacterIds characterIds = new CharacterIds(Arrays.asList(1017100L, 1009144L, 1011334L));
+
+        Assertions.assertThat(characterIds.toArray()).containsExactly(1009144L, 1011334L, 1017100L);
+        Assertions.assertThat(new ObjectMapper().writeValueAsString(characterIds)).isEqualTo("[1009144,1011334,1017100]");
+    }
+
+    @Test
+    void contains_will_only_find_the_ids_of_the_snapshot() {
+        CharacterIds characterIds = new CharacterIds(Arrays.asList(1017100L, 1009144L, 1011334L));
+
+        Assertions.assertThat(characterIds.contains(1011334L)).isTrue();
+        Assertions.assertThat(characterIds.contains(1011335L)).isFalse();
+        Assertions.assertThat(new CharacterIds(new long[0]).contains(1011334L)).isFalse();
+    }
+
+    @Test
+    void indexAfter_will_find_the_next_position_even_for_unknown_ids() {
+        CharacterIds characterIds = new CharacterIds(Arrays.asList(10L, 20L, 30L));
+
+        Assertions.assertThat(characterIds.indexAfter(20L)).isEqualTo(2);
+        Assertions.assertThat(characterIds.indexAfter(25L)).isEqualTo(2);
+        Assertions.assertThat(characterIds.indexAfter(5L)).isEqualTo(0);
+        Assertions.assertThat(characterIds.indexAfter(30L)).isEqualTo(3);
+    }
+
+    @Test
+    void version_will_only_change_when_the_ids_do() {
+        CharacterIds characterIds = new CharacterIds(Arrays.asList(1011334L, 1017100L));
+
+        Assertions.assertThat(new CharacterIds(Arrays.asList(1011334L, 1017100L)).getVersion()).isEqualTo(characterIds.getVersion());
+        Assertions.assertThat(new CharacterIds(Arrays.asList(1011334L, 1009144L)).getVersion()).isNotEqualTo(characterIds.getVersion());
+        Assertions.assertThat(characterIds.getVersion()).hasSize(64);
+    }
+
+    @Test
+    void slice_will_stop_at_the_last_id() {
+        CharacterIds characterIds = new CharacterIds(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+
+        Assertions.assertThat(characterIds.slice(1, 2)).containsExactly(2L, 3L);
+        Assertions.assertThat(characterIds.slice(3, 100)).containsExactly(4L, 5L);
+        Assertions.assertThat(characterIds.slice(10, 2)).isEmpty();
+    }
+
+    @Test
+    void writeNdjson_will_write_one_id_per_line() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        StringBuilder expected = new StringBuilder("0\n");
+        ids.add(0L);
+        //Enough ids to fill the write buffer more than once
+        for (long id = 1009144L; id < 1009144L + 2000; id++) {
+            ids.add(id);
+            expected.append(id).append('\n');
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new CharacterIds(ids).writeNdjson(outputStream);
+
+        Assertions.assertThat(new String(outputStream.toByteArray(), StandardCharsets.US_ASCII)).isEqualTo(expected.toString());
+    }
+}
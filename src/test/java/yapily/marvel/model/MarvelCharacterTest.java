@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -53,19 +54,71 @@ class MarvelCharacterTest {
     }
 
     @Test()
-    void getJsonResults_with_missing_node_will_throw_exception() throws IOException, URISyntaxException {
+    void getCharactersFromJson_with_missing_node_will_throw_exception() throws IOException, URISyntaxException {
         String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(MISSING_NODE_MARVEL_CHARACTERS_JSON).toURI())));
 
         assertThrows(MissingJsonNodeException.class,
                 () -> {
-                    MarvelCharacter.getJsonResults(json);
+                    MarvelCharacter.getCharactersFromJson(json);
+                });
+    }
+
+    @Test()
+    void getCharactersFromJson_with_data_without_results_will_throw_exception() {
+        assertThrows(MissingJsonNodeException.class,
+                () -> {
+                    MarvelCharacter.getCharactersFromJson("{\"code\":200,\"data\":{\"offset\":0,\"total\":1493}}");
+                });
+    }
+
+    @Test()
+    void getCharactersFromJson_with_results_that_are_not_an_array_will_throw_exception() {
+        assertThrows(MissingJsonNodeException.class,
+                () -> {
+                    MarvelCharacter.getCharactersFromJson("{\"code\":200,\"data\":{\"total\":1,\"results\":{\"id\":1011334}}}");
                 });
     }
 
     @Test
-    void getJsonResults_will_return_successfully() throws URISyntaxException, IOException, MissingJsonNodeException {
+    void readCharactersFromJson_will_emit_every_character_in_order() throws URISyntaxException, IOException,
+            UnableToProcessJsonException, MissingJsonNodeException {
         String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SAMPLE_MARVEL_CHARACTERS_JSON).toURI())));
+        List<Long> ids = new ArrayList<>();
+
+        int total = MarvelCharacter.readCharactersFromJson(json, marvelCharacter -> ids.add(marvelCharacter.getId()));
+
+        Assertions.assertThat(total).isEqualTo(1493);
+        Assertions.assertThat(ids).hasSize(20);
+        Assertions.assertThat(ids.get(0)).isEqualTo(1011334L);
+        Assertions.assertThat(ids.get(19)).isEqualTo(1010870L);
+    }
 
-        Assertions.assertThat(MarvelCharacter.getJsonResults(json).size()).isEqualTo(20);
+    @Test
+    void getCharactersFromJson_will_skip_characters_without_an_id() throws UnableToProcessJsonException, MissingJsonNodeException {
+        List<MarvelCharacter> charactersFromJson = MarvelCharacter.getCharactersFromJson("{\"data\":{\"total\":3,\"results\":[" +
+                "{\"name\":\"No id\"},{\"id\":null,\"name\":\"Null id\"},{\"id\":1011334,\"name\":\"3-D Man\"}]}}");
+
+        Assertions.assertThat(charactersFromJson).extracting(MarvelCharacter::getId).containsExactly(1011334L);
+    }
+
+    @Test
+    void translated_will_share_the_character_and_leave_it_untouched() {
+        MarvelCharacter.Thumbnail thumbnail = new MarvelCharacter.Thumbnail("http://i.annihil.us/u/prod/marvel/i/mg/3/20/5232158de5b16",
+                "jpg");
+        MarvelCharacter marvelCharacter = new MarvelCharacter(1017100L, "A-Bomb (HAS)", "Rick Jones", thumbnail,
+                "2013-09-18T15:54:04-0400");
+
+        MarvelCharacter translatedCharacter = marvelCharacter.translated("Rick Jones auf Deutsch");
+        MarvelCharacter untranslatedCharacter = marvelCharacter.untranslated();
+
+        Assertions.assertThat(translatedCharacter.getDescription()).isEqualTo("Rick Jones auf Deutsch");
+        Assertions.assertThat(translatedCharacter.getThumbnail()).isSameAs(thumbnail);
+        Assertions.assertThat(translatedCharacter.getModified()).isEqualTo("2013-09-18T15:54:04-0400");
+        Assertions.assertThat(translatedCharacter.isTranslationUnavailable()).isFalse();
+        Assertions.assertThat(untranslatedCharacter.getDescription()).isEqualTo("Rick Jones");
+        Assertions.assertThat(untranslatedCharacter.getThumbnail()).isSameAs(thumbnail);
+        Assertions.assertThat(untranslatedCharacter.isTranslationUnavailable()).isTrue();
+        Assertions.assertThat(marvelCharacter.getDescription()).isEqualTo("Rick Jones");
+        Assertions.assertThat(marvelCharacter.isTranslationUnavailable()).isFalse();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package yapily.marvel.service;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
+import yapily.marvel.exceptions.YandexApiKeyNotFoundException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ApiKeyProviderTest {
+    private static final Pattern API_URI = Pattern.compile("\\?ts=(\\d+)&apikey=public_key&hash=([0-9a-f]{32})");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getMarvelApiUri_will_sign_the_timestamp_with_the_marvel_keys() throws IOException, MarvelApiKeyNotFoundException {
+        ApiKeyProvider apiKeyProvider = createApiKeyProvider(writeApiKeys("public_key", "private_key"));
+
+        Matcher matcher = API_URI.matcher(apiKeyProvider.getMarvelApiUri());
+
+        Assertions.assertThat(matcher.matches()).isTrue();
+        Assertions.assertThat(matcher.group(2)).isEqualTo(DigestUtils.md5Hex(matcher.group(1) + "private_key" + "public_key"));
+    }
+
+    @Test
+    void getYandexApiKey_will_return_the_yandex_key() throws IOException, YandexApiKeyNotFoundException {
+        ApiKeyProvider apiKeyProvider = createApiKeyProvider(writeApiKeys("public_key", "private_key"));
+
+        Assertions.assertThat(apiKeyProvider.getYandexApiKey()).isEqualTo("yandex_key");
+    }
+
+    @Test
+    void reload_will_pick_up_changed_keys() throws IOException, MarvelApiKeyNotFoundException {
+        Path apiKeys = writeApiKeys("public_key", "private_key");
+        ApiKeyProvider apiKeyProvider = createApiKeyProvider(apiKeys);
+
+        writeApiKeys("new_public_key", "new_private_key");
+        apiKeyProvider.reload();
+
+        Assertions.assertThat(apiKeyProvider.getMarvelApiUri()).contains("&apikey=new_public_key&");
+    }
+
+    @Test
+    void reload_will_keep_the_previous_keys_if_the_file_is_empty() throws IOException, MarvelApiKeyNotFoundException,
+            YandexApiKeyNotFoundException {
+        Path apiKeys = writeApiKeys("public_key", "private_key");
+        ApiKeyProvider apiKeyProvider = createApiKeyProvider(apiKeys);
+
+        Files.write(apiKeys, new byte[0]);
+        apiKeyProvider.reload();
+
+        Assertions.assertThat(apiKeyProvider.getMarvelApiUri()).contains("&apikey=public_key&");
+        Assertions.assertThat(apiKeyProvider.getYandexApiKey()).isEqualTo("yandex_key");
+    }
+
+    @Test
+    void getMarvelApiUri_will_throw_exception_if_the_file_is_missing() {
+        ApiKeyProvider apiKeyProvider = createApiKeyProvider(tempDir.resolve("missing_api_key"));
+
+        assertThrows(MarvelApiKeyNotFoundException.class, apiKeyProvider::getMarvelApiUri);
+    }
+
+    @Test
+    void getYandexApiKey_will_throw_exception_if_the_file_is_missing() {
+        ApiKeyProvider apiKeyProvider = createApiKeyProvider(tempDir.resolve("missing_api_key"));
+
+        assertThrows(YandexApiKeyNotFoundException.class, apiKeyProvider::getYandexApiKey);
+    }
+
+    private Path writeApiKeys(String publicKey, String privateKey) throws IOException {
+        return Files.write(tempDir.resolve("api_key"), Arrays.asList("marvel.key.public = " + publicKey,
+                "marvel.key.private = " + privateKey, "yandex.key = yandex_key"));
+    }
+
+    private ApiKeyProvider createApiKeyProvider(Path apiKeys) {
+        return new ApiKeyProvider(apiKeys.toString(), "marvel.key.public", "marvel.key.private", "yandex.key");
+    }
+}
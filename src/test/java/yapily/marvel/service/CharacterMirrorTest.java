@@ -0,0 +1,50 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import yapily.marvel.model.MarvelCharacter;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+class CharacterMirrorTest {
+    private final CharacterMirror characterMirror = new CharacterMirror();
+
+    @Test
+    void getModifiedSince_will_be_the_day_before_the_latest_modification() {
+        characterMirror.replaceAll(Arrays.asList(character(1L, "2014-04-29T14:18:17-0400"), character(2L, "2016-02-03T10:25:22-0500"),
+                character(3L, "-0001-11-30T00:00:00-0500"), character(4L, null)));
+
+        Assertions.assertThat(characterMirror.isLoaded()).isTrue();
+        Assertions.assertThat(characterMirror.getModifiedSince()).isEqualTo("2016-02-02");
+    }
+
+    @Test
+    void putAll_will_update_the_mirror_and_replaceAll_will_drop_removed_characters() {
+        characterMirror.replaceAll(Arrays.asList(character(1L, "2014-04-29T14:18:17-0400"), character(2L, "2014-04-29T14:18:17-0400")));
+        characterMirror.putAll(Collections.singletonList(character(3L, "2020-05-01T10:00:00-0400")));
+
+        Assertions.assertThat(characterMirror.getIds().toArray()).containsExactly(1L, 2L, 3L);
+        Assertions.assertThat(characterMirror.getModifiedSince()).isEqualTo("2020-04-30");
+
+        characterMirror.replaceAll(Collections.singletonList(character(3L, "2020-05-01T10:00:00-0400")));
+
+        Assertions.assertThat(characterMirror.get(1L)).isNull();
+        Assertions.assertThat(characterMirror.getIds().toArray()).containsExactly(3L);
+    }
+
+    @Test
+    void search_will_find_the_characters_added_by_the_latest_sync() {
+        characterMirror.replaceAll(Collections.singletonList(character(1L, "2014-04-29T14:18:17-0400")));
+        Assertions.assertThat(characterMirror.search("character", 10)).extracting(MarvelCharacter::getId).containsExactly(1L);
+
+        characterMirror.putAll(Collections.singletonList(character(2L, "2020-05-01T10:00:00-0400")));
+
+        Assertions.assertThat(characterMirror.search("character", 10)).extracting(MarvelCharacter::getId).containsExactly(1L, 2L);
+    }
+
+    private static MarvelCharacter character(Long id, String modified) {
+        return new MarvelCharacter(id, "Character " + id, "", new MarvelCharacter.Thumbnail("http://i.annihil.us/u/prod/marvel/i/mg/3/20" +
+                "/5232158de5b16", "jpg"), modified);
+    }
+}
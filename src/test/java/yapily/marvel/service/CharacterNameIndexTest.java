@@ -0,0 +1,49 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import yapily.marvel.model.MarvelCharacter;
+
+import java.util.Arrays;
+
+class CharacterNameIndexTest {
+    private final CharacterNameIndex nameIndex = new CharacterNameIndex(Arrays.asList(character(1L, "Spider-Man (Ultimate)"),
+            character(2L, "Spider-Man"), character(3L, "Spider-Woman (Jessica Drew)"), character(4L, "Iron Man"),
+            character(5L, "Namorita"), character(6L, "Námor"), character(7L, null)));
+
+    @Test
+    void search_will_rank_names_starting_with_the_query_and_shorter_names_first() {
+        Assertions.assertThat(nameIndex.search("spider", 10)).extracting(MarvelCharacter::getId).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void search_will_match_every_word_of_the_query() {
+        Assertions.assertThat(nameIndex.search("spi man", 10)).extracting(MarvelCharacter::getId).containsExactly(2L, 1L);
+        Assertions.assertThat(nameIndex.search("ultimate SPIDER", 10)).extracting(MarvelCharacter::getId).containsExactly(1L);
+        Assertions.assertThat(nameIndex.search("man", 10)).extracting(MarvelCharacter::getId).containsExactly(4L, 2L, 1L);
+    }
+
+    @Test
+    void search_will_ignore_case_and_accents() {
+        Assertions.assertThat(nameIndex.search("NAMOR", 10)).extracting(MarvelCharacter::getId).containsExactly(6L, 5L);
+        Assertions.assertThat(nameIndex.search("námo", 10)).extracting(MarvelCharacter::getId).containsExactly(6L, 5L);
+    }
+
+    @Test
+    void search_will_return_at_most_the_limit() {
+        Assertions.assertThat(nameIndex.search("spider", 1)).extracting(MarvelCharacter::getId).containsExactly(2L);
+        Assertions.assertThat(nameIndex.search("spider", 0)).isEmpty();
+    }
+
+    @Test
+    void search_will_return_nothing_for_blank_or_unknown_queries() {
+        Assertions.assertThat(nameIndex.search(" - ", 10)).isEmpty();
+        Assertions.assertThat(nameIndex.search("hulk", 10)).isEmpty();
+        Assertions.assertThat(nameIndex.search("spider hulk", 10)).isEmpty();
+        Assertions.assertThat(CharacterNameIndex.empty().search("spider", 10)).isEmpty();
+    }
+
+    private static MarvelCharacter character(Long id, String name) {
+        return new MarvelCharacter(id, name, "", null);
+    }
+}
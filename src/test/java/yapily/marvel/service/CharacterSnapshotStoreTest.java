@@ -0,0 +1,93 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import yapily.marvel.exceptions.MissingJsonNodeException;
+import yapily.marvel.exceptions.UnableToProcessJsonException;
+import yapily.marvel.model.MarvelCharacter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CharacterSnapshotStoreTest {
+    public static final String SAMPLE_MARVEL_CHARACTERS_JSON = "/sample_marvel_characters.json";
+
+    @TempDir
+    Path temporaryDirectory;
+
+    @Test
+    void read_will_return_the_characters_that_were_written() throws IOException, URISyntaxException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        List<MarvelCharacter> characters = readSampleCharacters();
+        characters.add(new MarvelCharacter(1L, "No thumbnail", null, null, null));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CharacterSnapshotStore.write(characters, outputStream);
+        List<MarvelCharacter> readCharacters = CharacterSnapshotStore.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        Assertions.assertThat(readCharacters).hasSameSizeAs(characters);
+        for (int i = 0; i < characters.size(); i++) {
+            Assertions.assertThat(readCharacters.get(i)).isEqualToComparingFieldByFieldRecursively(characters.get(i));
+        }
+    }
+
+    @Test
+    void read_will_reject_a_corrupted_snapshot() throws IOException, URISyntaxException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CharacterSnapshotStore.write(readSampleCharacters(), outputStream);
+        byte[] snapshot = outputStream.toByteArray();
+        snapshot[snapshot.length / 2] ^= 1;
+
+        assertThrows(IOException.class, () -> CharacterSnapshotStore.read(new ByteArrayInputStream(snapshot)));
+    }
+
+    @Test
+    void read_will_reject_a_string_length_that_is_too_long() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CharacterSnapshotStore.write(Collections.singletonList(new MarvelCharacter(1L, "Hulk", null, null, null)), outputStream);
+        byte[] snapshot = outputStream.toByteArray();
+        //The length of the name follows the magic number, the format version, the creation time, the count and the id
+        ByteBuffer.wrap(snapshot).putInt(28, Integer.MAX_VALUE);
+
+        assertThrows(IOException.class, () -> CharacterSnapshotStore.read(new ByteArrayInputStream(snapshot)));
+    }
+
+    @Test
+    void load_will_return_the_characters_saved_to_disk() throws IOException, URISyntaxException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        CharacterSnapshotStore snapshotStore = new CharacterSnapshotStore(temporaryDirectory.resolve("characters.snapshot").toString());
+        Assertions.assertThat(snapshotStore.load()).isNull();
+
+        snapshotStore.save(readSampleCharacters());
+        snapshotStore.save(Collections.singletonList(new MarvelCharacter(1L, "Replaced", "", null, null)));
+
+        Assertions.assertThat(snapshotStore.load()).extracting(MarvelCharacter::getName).containsExactly("Replaced");
+        Assertions.assertThat(Files.list(temporaryDirectory)).hasSize(1);
+    }
+
+    @Test
+    void load_will_ignore_a_file_that_is_not_a_snapshot() throws IOException {
+        Path location = temporaryDirectory.resolve("characters.snapshot");
+        Files.write(location, "not a snapshot".getBytes());
+
+        Assertions.assertThat(new CharacterSnapshotStore(location.toString()).load()).isNull();
+    }
+
+    private List<MarvelCharacter> readSampleCharacters() throws IOException, URISyntaxException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SAMPLE_MARVEL_CHARACTERS_JSON).toURI())));
+        return MarvelCharacter.getCharactersFromJson(json);
+    }
+}
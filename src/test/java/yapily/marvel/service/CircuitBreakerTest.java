@@ -0,0 +1,70 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class CircuitBreakerTest {
+
+    @Test
+    void onFailure_will_open_the_circuit_once_the_threshold_is_reached() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onFailure();
+        Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onFailure();
+
+        Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void onSuccess_will_reset_the_consecutive_failures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onFailure();
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onSuccess();
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onFailure();
+
+        Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void tryAcquire_will_let_a_single_probe_through_once_the_circuit_is_half_open() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(10));
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onFailure();
+
+        Thread.sleep(20);
+
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+        Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isFalse();
+
+        circuitBreaker.onSuccess();
+        Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void onFailure_will_open_the_circuit_again_if_the_probe_fails() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMillis(10));
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.tryAcquire();
+            circuitBreaker.onFailure();
+        }
+
+        Thread.sleep(20);
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onFailure();
+
+        Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        Assertions.assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+}
@@ -0,0 +1,67 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class HotCharacterTrackerTest {
+
+    @TempDir
+    Path temporaryDirectory;
+
+    @Test
+    void getHottest_will_return_the_most_requested_characters_first() {
+        HotCharacterTracker tracker = new HotCharacterTracker(100, "");
+        record(tracker, 100L, 1);
+        record(tracker, 200L, 3);
+        record(tracker, 300L, 2);
+
+        Assertions.assertThat(tracker.getHottest(2)).containsExactly(200L, 300L);
+    }
+
+    @Test
+    void record_will_ignore_new_characters_once_the_maximum_is_tracked() {
+        HotCharacterTracker tracker = new HotCharacterTracker(1, "");
+        record(tracker, 100L, 1);
+        record(tracker, 200L, 5);
+
+        Assertions.assertThat(tracker.getHottest(10)).containsExactly(100L);
+    }
+
+    @Test
+    void decay_will_halve_the_counts_and_drop_the_characters_no_longer_requested() {
+        HotCharacterTracker tracker = new HotCharacterTracker(100, "");
+        record(tracker, 100L, 1);
+        record(tracker, 200L, 4);
+
+        tracker.decay();
+        record(tracker, 300L, 3);
+
+        Assertions.assertThat(tracker.getHottest(10)).containsExactly(300L, 200L);
+    }
+
+    @Test
+    void load_will_return_the_characters_that_were_saved() {
+        String location = temporaryDirectory.resolve("hot-characters").toString();
+        new HotCharacterTracker(100, location).save(Arrays.asList(300L, 100L));
+
+        Assertions.assertThat(new HotCharacterTracker(100, location).load()).containsExactly(300L, 100L);
+    }
+
+    @Test
+    void load_will_return_nothing_if_saving_is_disabled() {
+        HotCharacterTracker tracker = new HotCharacterTracker(100, "");
+        tracker.save(Arrays.asList(300L, 100L));
+
+        Assertions.assertThat(tracker.load()).isEmpty();
+    }
+
+    private static void record(HotCharacterTracker tracker, Long id, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(id);
+        }
+    }
+}
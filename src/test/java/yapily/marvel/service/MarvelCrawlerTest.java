@@ -0,0 +1,103 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import yapily.marvel.exceptions.MarvelApiKeyNotFoundException;
+import yapily.marvel.exceptions.MissingJsonNodeException;
+import yapily.marvel.exceptions.UnableToProcessJsonException;
+import yapily.marvel.model.MarvelPage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MarvelCrawlerTest {
+    private final MarvelCrawler marvelCrawler = new MarvelCrawler(4);
+
+    @AfterEach
+    void shutdown() {
+        marvelCrawler.shutdown();
+    }
+
+    @Test
+    void crawl_will_fetch_every_page_once_and_merge_them_in_order() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        int total = 1493;
+        ConcurrentLinkedQueue<Integer> requestedOffsets = new ConcurrentLinkedQueue<>();
+
+        List<Integer> results = marvelCrawler.crawl((offset, limit) -> {
+            requestedOffsets.add(offset);
+            List<Integer> page = new ArrayList<>();
+            for (int i = offset; i < Math.min(offset + limit, total); i++) {
+                page.add(i);
+            }
+            return new MarvelPage<>(total, page);
+        });
+
+        Assertions.assertThat(results).hasSize(total);
+        for (int i = 0; i < total; i++) {
+            Assertions.assertThat(results.get(i)).isEqualTo(i);
+        }
+        Assertions.assertThat(requestedOffsets).hasSize(15).doesNotHaveDuplicates().doesNotContain(1500);
+    }
+
+    @Test
+    void crawl_will_only_fetch_the_first_page_when_everything_fits() throws MarvelApiKeyNotFoundException, UnableToProcessJsonException,
+            MissingJsonNodeException {
+        ConcurrentLinkedQueue<Integer> requestedOffsets = new ConcurrentLinkedQueue<>();
+
+        List<Integer> results = marvelCrawler.crawl((offset, limit) -> {
+            requestedOffsets.add(offset);
+            return new MarvelPage<>(1, Collections.singletonList(1));
+        });
+
+        Assertions.assertThat(results).containsExactly(1);
+        Assertions.assertThat(requestedOffsets).containsExactly(0);
+    }
+
+    @Test
+    void crawl_will_rethrow_the_exception_of_a_failed_page() {
+        assertThrows(MissingJsonNodeException.class,
+                () -> {
+                    marvelCrawler.crawl((offset, limit) -> {
+                        if (offset == 300) {
+                            throw new MissingJsonNodeException();
+                        }
+                        return new MarvelPage<>(1000, Collections.singletonList(offset));
+                    });
+                });
+    }
+
+    @Test
+    void crawl_will_stop_the_remaining_pages_once_a_page_failed() throws InterruptedException {
+        CountDownLatch interruptedPages = new CountDownLatch(3);
+        ConcurrentLinkedQueue<Integer> requestedOffsets = new ConcurrentLinkedQueue<>();
+
+        assertThrows(MissingJsonNodeException.class,
+                () -> {
+                    marvelCrawler.crawl((offset, limit) -> {
+                        requestedOffsets.add(offset);
+                        if (offset == 100) {
+                            throw new MissingJsonNodeException();
+                        }
+                        if (offset > 0) {
+                            try {
+                                new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                interruptedPages.countDown();
+                            }
+                        }
+                        return new MarvelPage<>(1000, Collections.singletonList(offset));
+                    });
+                });
+
+        Assertions.assertThat(interruptedPages.await(5, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(requestedOffsets).doesNotContain(900);
+    }
+}
@@ -1,26 +1,42 @@
 package yapily.marvel.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
-import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
+import yapily.marvel.CacheConfig;
 import yapily.marvel.exceptions.*;
+import yapily.marvel.model.CharacterIds;
+import yapily.marvel.model.CharacterResult;
 import yapily.marvel.model.MarvelCharacter;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static yapily.marvel.service.MarvelServiceImpl.CHARACTERS_API;
 import static yapily.marvel.service.MarvelServiceImpl.EXTERNAL_MARVEL_API;
@@ -31,48 +47,61 @@ public class MarvelServiceImplTest {
     private TranslateService translateService;
     @Mock
     private RestTemplateBuilder builder;
+    @Mock
+    private ApiKeyProvider apiKeyProvider;
+
+    private final UpstreamScheduler upstreamScheduler = new UpstreamScheduler(new SimpleMeterRegistry(), 1000, 1000, 1000,
+            1000, Duration.ofMillis(1), Duration.ofMillis(10), 2, Duration.ofSeconds(5));
+    private final HotCharacterTracker hotCharacterTracker = new HotCharacterTracker(10000, "");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager();
+    private RestTemplate restTemplateMock;
+
+    private static final Duration WAIT_TIMEOUT = Duration.ofSeconds(5);
+    private static final String API_URI = "?ts=1589824139659&apikey=19906446e8f82a4809bca1f44a213063&hash=66839952294ed5de8adba5c2ff1bcbc8";
 
     public static final String SAMPLE_MARVEL_CHARACTERS_JSON = "/sample_marvel_characters.json";
     public static final String EMPTY_MARVEL_CHARACTERS_JSON = "/empty_marvel_characters.json";
+    public static final String SINGLE_MARVEL_CHARACTER_JSON = "/single_marvel_character.json";
+
+    @Before
+    public void setUp() {
+        restTemplateMock = mock(RestTemplate.class);
+        when(builder.build()).thenReturn(restTemplateMock);
+    }
 
     @Test
     public void getCharactersIds_should_return_successfully() throws MarvelApiKeyNotFoundException, URISyntaxException, IOException,
             UnableToProcessJsonException, MissingJsonNodeException {
-        MockitoAnnotations.initMocks(this);
         String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SAMPLE_MARVEL_CHARACTERS_JSON).toURI())));
         String emptyJson = new String(Files.readAllBytes(Paths.get(getClass().getResource(EMPTY_MARVEL_CHARACTERS_JSON).toURI())));
 
-        String apiUri = "?ts=1589824139659&apikey=19906446e8f82a4809bca1f44a213063&hash=66839952294ed5de8adba5c2ff1bcbc8";
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
 
-        RestTemplate restTemplateMock = mock(RestTemplate.class);
-        when(builder.build()).thenReturn(restTemplateMock);
-
-        MarvelServiceImpl marvelServiceSpy = Mockito.spy(new MarvelServiceImpl(translateService, builder));
-        Mockito.doReturn(apiUri).
-                when(marvelServiceSpy).getApiUri();
-
-        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + apiUri + "&offset=0", String.class)).thenReturn(json);
-        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + apiUri + "&offset=100", String.class)).thenReturn(emptyJson);
+        //The sample reports a total of 1493 characters, so every page after the first one is answered with an empty page
+        when(restTemplateMock.getForObject(startsWith(EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI), eq(String.class)))
+                .thenReturn(emptyJson);
+        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI + "&limit=100&offset=0", String.class))
+                .thenReturn(json);
 
         List<Long> expectedIds = new ArrayList<>(Arrays.asList(1011334L, 1017100L, 1009144L, 1010699L, 1009146L, 1016823L, 1009148L,
                 1009149L, 1010903L, 1011266L, 1010354L, 1010846L, 1011297L, 1011031L, 1009150L, 1011198L, 1011175L, 1011136L, 1011176L,
                 1010870L));
 
-        Assertions.assertThat(marvelServiceSpy.getCharactersIds()).isEqualTo(expectedIds);
+        Assertions.assertThat(marvelServiceSpy.getCharactersIds().toArray())
+                .isEqualTo(expectedIds.stream().mapToLong(Long::longValue).sorted().toArray());
+        verify(restTemplateMock, times(15)).getForObject(startsWith(EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI), eq(String.class));
+        verify(restTemplateMock, never()).getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI + "&limit=100&offset=1500",
+                String.class);
     }
 
     @Test
-    public void getCharacters_should_return_successfully() throws MarvelApiKeyNotFoundException, IOException,
+    public void getCharacters_should_return_successfully() throws MarvelApiKeyNotFoundException, IOException, URISyntaxException,
             UnableToProcessJsonException, MissingJsonNodeException, CharacterNotFoundException {
-        MockitoAnnotations.initMocks(this);
-        String apiUri = "?ts=1589824139659&apikey=19906446e8f82a4809bca1f44a213063&hash=66839952294ed5de8adba5c2ff1bcbc8";
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
 
-        RestTemplate restTemplateMock = mock(RestTemplate.class);
-        when(builder.build()).thenReturn(restTemplateMock);
-
-        MarvelServiceImpl marvelServiceSpy = Mockito.spy(new MarvelServiceImpl(translateService, builder));
-        Mockito.doReturn(apiUri).
-                when(marvelServiceSpy).getApiUri();
+        String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SINGLE_MARVEL_CHARACTER_JSON).toURI())));
+        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + "/1017100" + API_URI, String.class)).thenReturn(json);
 
         MarvelCharacter marvelCharacter = new MarvelCharacter(1017100L, "A-Bomb (HAS)", "Rick Jones has been Hulk's best bud since day " +
                 "one, but now he's more than a friend...he's a teammate! Transformed by a Gamma energy explosion, A-Bomb's thick, armored" +
@@ -86,21 +115,20 @@ public class MarvelServiceImplTest {
         Assertions.assertThat(returnedCharacter.getDescription()).isEqualTo(marvelCharacter.getDescription());
         Assertions.assertThat(returnedCharacter.getThumbnail().getPath()).isEqualTo(marvelCharacter.getThumbnail().getPath());
         Assertions.assertThat(returnedCharacter.getThumbnail().getExtension()).isEqualTo(marvelCharacter.getThumbnail().getExtension());
+        Assertions.assertThat(meterRegistry.get("marvel.json.parse").timer().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("marvel.json.parse.size").summary().totalAmount()).isEqualTo(json.length());
     }
 
     @Test
     public void getTranslatedCharacter_should_return_successfully() throws MarvelApiKeyNotFoundException, IOException,
-            UnableToProcessJsonException, MissingJsonNodeException, YandexApiKeyNotFoundException, CharacterNotFoundException {
-        MockitoAnnotations.initMocks(this);
-        RestTemplate restTemplateMock = mock(RestTemplate.class);
-        when(builder.build()).thenReturn(restTemplateMock);
-
+            UnableToProcessJsonException, MissingJsonNodeException, YandexApiKeyNotFoundException, CharacterNotFoundException,
+            TranslationUnavailableException {
         MarvelCharacter marvelCharacter = new MarvelCharacter(1017100L, "A-Bomb (HAS)", "Rick Jones has been Hulk's best bud since day " +
                 "one, but now he's more than a friend...he's a teammate! Transformed by a Gamma energy explosion, A-Bomb's thick, armored" +
                 " skin is just as strong and powerful as it is blue. And when he curls into action, he uses it like a giant bowling ball " +
                 "of destruction! ", new MarvelCharacter.Thumbnail("http://i.annihil.us/u/prod/marvel/i/mg/3/20/5232158de5b16", "jpg"));
 
-        MarvelServiceImpl marvelServiceSpy = Mockito.spy(new MarvelServiceImpl(translateService, builder));
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
         Mockito.doReturn(marvelCharacter).when(marvelServiceSpy).getCharacter(1017100L);
 
         when(translateService.translate(marvelCharacter.getDescription(), "en", "de")).thenReturn("Rick Jones ist seit dem ersten Tag " +
@@ -122,4 +150,210 @@ public class MarvelServiceImplTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getTranslatedCharacter_should_return_the_english_description_when_the_translation_is_unavailable() throws Exception {
+        MarvelCharacter marvelCharacter = new MarvelCharacter(1017100L, "A-Bomb (HAS)", "Rick Jones",
+                new MarvelCharacter.Thumbnail("http://i.annihil.us/u/prod/marvel/i/mg/3/20/5232158de5b16", "jpg"));
+
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+        Mockito.doReturn(marvelCharacter).when(marvelServiceSpy).getCharacter(1017100L);
+        when(translateService.translate("Rick Jones", "en", "de")).thenThrow(new TranslationUnavailableException("Yandex is too slow",
+                null));
+
+        MarvelCharacter returnedCharacter = marvelServiceSpy.getTranslatedCharacter(1017100L, "de");
+
+        Assertions.assertThat(returnedCharacter.getDescription()).isEqualTo("Rick Jones");
+        Assertions.assertThat(returnedCharacter.isTranslationUnavailable()).isTrue();
+        Assertions.assertThat(marvelCharacter.isTranslationUnavailable()).isFalse();
+    }
+
+    @Test
+    public void getCharacter_should_return_cached_character_without_calling_marvel() throws Exception {
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+
+        MarvelCharacter marvelCharacter = new MarvelCharacter(1017100L, "A-Bomb (HAS)", "Rick Jones",
+                new MarvelCharacter.Thumbnail("http://i.annihil.us/u/prod/marvel/i/mg/3/20/5232158de5b16", "jpg"));
+        cacheManager.getCache(CacheConfig.CHARACTER_CACHE).put(1017100L, marvelCharacter);
+
+        Assertions.assertThat(marvelServiceSpy.getCharacter(1017100L)).isSameAs(marvelCharacter);
+        verify(marvelServiceSpy, never()).getApiUri();
+    }
+
+    @Test
+    public void getCharacter_should_throw_not_found_for_cached_missing_character() throws Exception {
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+        cacheManager.getCache(CacheConfig.CHARACTER_CACHE).put(1L, CacheConfig.NOT_FOUND);
+
+        Assertions.assertThatThrownBy(() -> marvelServiceSpy.getCharacter(1L)).isInstanceOf(CharacterNotFoundException.class);
+        verify(marvelServiceSpy, never()).getApiUri();
+    }
+
+    @Test
+    public void getCharacters_should_serve_cached_characters_and_fetch_the_rest() throws Exception {
+        MarvelServiceImpl marvelServiceSpy = createMarvelService(2, 100);
+
+        MarvelCharacter cachedCharacter = new MarvelCharacter(1009144L, "A.I.M.", "AIM is a terrorist organization",
+                new MarvelCharacter.Thumbnail("http://i.annihil.us/u/prod/marvel/i/mg/6/20/52602f21f29ec", "jpg"));
+        cacheManager.getCache(CacheConfig.CHARACTER_CACHE).put(1009144L, cachedCharacter);
+        cacheManager.getCache(CacheConfig.CHARACTER_CACHE).put(1L, CacheConfig.NOT_FOUND);
+
+        String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SINGLE_MARVEL_CHARACTER_JSON).toURI())));
+        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + "/1017100" + API_URI, String.class)).thenReturn(json);
+
+        List<CharacterResult> results = marvelServiceSpy.getCharacters(Arrays.asList(1017100L, 1009144L, 1L, 1017100L), null);
+
+        Assertions.assertThat(results).extracting(CharacterResult::getId).containsExactly(1017100L, 1009144L, 1L);
+        Assertions.assertThat(results).extracting(CharacterResult::getStatus).containsExactly(CharacterResult.Status.FOUND,
+                CharacterResult.Status.FOUND, CharacterResult.Status.NOT_FOUND);
+        Assertions.assertThat(results.get(0).getCharacter().getName()).isEqualTo("A-Bomb (HAS)");
+        Assertions.assertThat(results.get(1).getCharacter()).isSameAs(cachedCharacter);
+        verify(restTemplateMock, times(1)).getForObject(startsWith(EXTERNAL_MARVEL_API), eq(String.class));
+        Assertions.assertThat(hotCharacterTracker.getHottest(10)).containsExactlyInAnyOrder(1017100L, 1009144L);
+    }
+
+    @Test
+    public void getCharacters_should_report_characters_the_marvel_api_failed_on_as_unavailable() throws Exception {
+        MarvelServiceImpl marvelServiceSpy = createMarvelService(2, 100);
+
+        String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SINGLE_MARVEL_CHARACTER_JSON).toURI())));
+        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + "/1017100" + API_URI, String.class)).thenReturn(json);
+        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + "/1009144" + API_URI, String.class))
+                .thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+
+        List<CharacterResult> results = marvelServiceSpy.getCharacters(Arrays.asList(1009144L, 1017100L), null);
+
+        Assertions.assertThat(results).extracting(CharacterResult::getStatus).containsExactly(CharacterResult.Status.UNAVAILABLE,
+                CharacterResult.Status.FOUND);
+        Assertions.assertThat(results.get(0).getCharacter()).isNull();
+        Assertions.assertThat(results.get(1).getCharacter().getName()).isEqualTo("A-Bomb (HAS)");
+        Assertions.assertThat(hotCharacterTracker.getHottest(10)).containsExactly(1017100L);
+    }
+
+    @Test
+    public void getCharacters_should_translate_the_descriptions_together() throws Exception {
+        MarvelServiceImpl marvelService = createMarvelService();
+
+        MarvelCharacter aBomb = new MarvelCharacter(1017100L, "A-Bomb (HAS)", "Rick Jones", null);
+        MarvelCharacter aim = new MarvelCharacter(1009144L, "A.I.M.", "AIM is a terrorist organization", null);
+        cacheManager.getCache(CacheConfig.CHARACTER_CACHE).put(1017100L, aBomb);
+        cacheManager.getCache(CacheConfig.CHARACTER_CACHE).put(1009144L, aim);
+        cacheManager.getCache(CacheConfig.CHARACTER_CACHE).put(1L, CacheConfig.NOT_FOUND);
+        when(translateService.translateAll(Arrays.asList("Rick Jones", "AIM is a terrorist organization"), "en", "de"))
+                .thenReturn(Arrays.asList("Rick Jones", "AIM ist eine Terrororganisation"));
+
+        List<CharacterResult> results = marvelService.getCharacters(Arrays.asList(1017100L, 1L, 1009144L), "de");
+
+        Assertions.assertThat(results).extracting(CharacterResult::getStatus).containsExactly(CharacterResult.Status.FOUND,
+                CharacterResult.Status.NOT_FOUND, CharacterResult.Status.FOUND);
+        Assertions.assertThat(results.get(2).getCharacter().getDescription()).isEqualTo("AIM ist eine Terrororganisation");
+        Assertions.assertThat(aim.getDescription()).isEqualTo("AIM is a terrorist organization");
+        verify(translateService, times(1)).translateAll(Arrays.asList("Rick Jones", "AIM is a terrorist organization"), "en", "de");
+        verify(restTemplateMock, never()).getForObject(startsWith(EXTERNAL_MARVEL_API), eq(String.class));
+    }
+
+    @Test
+    public void searchCharacters_should_fail_until_the_mirror_is_loaded() {
+        MarvelServiceImpl marvelService = createMarvelService();
+
+        Assertions.assertThatThrownBy(() -> marvelService.searchCharacters("spider", 10))
+                .isInstanceOf(CharactersNotLoadedException.class);
+        verify(restTemplateMock, never()).getForObject(startsWith(EXTERNAL_MARVEL_API), eq(String.class));
+    }
+
+    @Test
+    public void getCharacters_should_reject_too_many_ids() {
+        MarvelServiceImpl marvelService = createMarvelService(1, 2);
+
+        Assertions.assertThatThrownBy(() -> marvelService.getCharacters(Arrays.asList(1L, 2L, 3L), null))
+                .isInstanceOf(TooManyCharacterIdsException.class);
+        verify(restTemplateMock, never()).getForObject(startsWith(EXTERNAL_MARVEL_API), eq(String.class));
+    }
+
+    @Test
+    public void getCharacter_should_throw_not_found_for_ids_missing_from_the_cached_ids() throws Exception {
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+        cacheManager.getCache(CacheConfig.CHARACTERS_CACHE).put(SimpleKey.EMPTY, new CharacterIds(Arrays.asList(1017100L, 1009144L)));
+
+        Assertions.assertThatThrownBy(() -> marvelServiceSpy.getCharacter(1L)).isInstanceOf(CharacterNotFoundException.class);
+        verify(marvelServiceSpy, never()).getApiUri();
+    }
+
+    @Test
+    public void refreshCharactersIds_should_only_fetch_the_characters_modified_since_the_last_sync() throws Exception {
+        String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SAMPLE_MARVEL_CHARACTERS_JSON).toURI())));
+        String emptyJson = new String(Files.readAllBytes(Paths.get(getClass().getResource(EMPTY_MARVEL_CHARACTERS_JSON).toURI())));
+        String modifiedJson = new String(Files.readAllBytes(Paths.get(getClass().getResource(SINGLE_MARVEL_CHARACTER_JSON).toURI())));
+
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+
+        when(restTemplateMock.getForObject(startsWith(EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI), eq(String.class)))
+                .thenReturn(emptyJson);
+        when(restTemplateMock.getForObject(EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI + "&limit=100&offset=0", String.class))
+                .thenReturn(json);
+        //The latest modification in the sample is on 2016-02-03
+        String deltaUri = EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI + "&modifiedSince=2016-02-02&orderBy=-modified&limit=100&offset=0";
+        when(restTemplateMock.getForObject(deltaUri, String.class)).thenReturn(modifiedJson);
+
+        marvelServiceSpy.getCharactersIds();
+        CharacterIds characterIds = marvelServiceSpy.refreshCharactersIds();
+
+        Assertions.assertThat(characterIds.size()).isEqualTo(20);
+        verify(restTemplateMock, times(1)).getForObject(deltaUri, String.class);
+        verify(restTemplateMock, times(16)).getForObject(startsWith(EXTERNAL_MARVEL_API + CHARACTERS_API + API_URI), eq(String.class));
+
+        //Characters are now served from the mirror, without calling the Marvel API
+        Assertions.assertThat(marvelServiceSpy.getCharacter(1017100L).getModified()).isEqualTo("2013-09-18T15:54:04-0400");
+        Assertions.assertThat(marvelServiceSpy.getCharacter(1011334L).getName()).isEqualTo("3-D Man");
+        verify(restTemplateMock, never()).getForObject(startsWith(EXTERNAL_MARVEL_API + CHARACTERS_API + "/"), eq(String.class));
+    }
+
+    @Test
+    public void getCharacter_should_cache_not_found_for_an_empty_page() throws Exception {
+        String emptyJson = new String(Files.readAllBytes(Paths.get(getClass().getResource(EMPTY_MARVEL_CHARACTERS_JSON).toURI())));
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+
+        String characterUri = EXTERNAL_MARVEL_API + CHARACTERS_API + "/1017100" + API_URI;
+        when(restTemplateMock.getForObject(characterUri, String.class)).thenReturn(emptyJson);
+
+        Assertions.assertThatThrownBy(() -> marvelServiceSpy.getCharacter(1017100L)).isInstanceOf(CharacterNotFoundException.class);
+        Assertions.assertThatThrownBy(() -> marvelServiceSpy.getCharacter(1017100L)).isInstanceOf(CharacterNotFoundException.class);
+        verify(restTemplateMock, times(1)).getForObject(characterUri, String.class);
+    }
+
+    @Test
+    public void getCharacter_should_retry_server_errors() throws Exception {
+        String json = new String(Files.readAllBytes(Paths.get(getClass().getResource(SINGLE_MARVEL_CHARACTER_JSON).toURI())));
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+
+        String characterUri = EXTERNAL_MARVEL_API + CHARACTERS_API + "/1017100" + API_URI;
+        when(restTemplateMock.getForObject(characterUri, String.class))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenReturn(json);
+
+        Assertions.assertThat(marvelServiceSpy.getCharacter(1017100L).getName()).isEqualTo("A-Bomb (HAS)");
+        verify(restTemplateMock, times(2)).getForObject(characterUri, String.class);
+    }
+
+    @Test
+    public void getCharacter_should_throw_upstream_unavailable_for_errors_other_than_not_found() {
+        MarvelServiceImpl marvelServiceSpy = createMarvelService();
+
+        String characterUri = EXTERNAL_MARVEL_API + CHARACTERS_API + "/1017100" + API_URI;
+        when(restTemplateMock.getForObject(characterUri, String.class)).thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+
+        Assertions.assertThatThrownBy(() -> marvelServiceSpy.getCharacter(1017100L)).isInstanceOf(UpstreamUnavailableException.class);
+        verify(restTemplateMock, times(1)).getForObject(characterUri, String.class);
+    }
+
+    private MarvelServiceImpl createMarvelService() {
+        return createMarvelService(1, 100);
+    }
+
+    private MarvelServiceImpl createMarvelService(int lookupThreads, int maxBatchSize) {
+        MarvelServiceImpl marvelServiceSpy = Mockito.spy(new MarvelServiceImpl(translateService, builder, new MarvelCrawler(1),
+                cacheManager, apiKeyProvider, new CharacterSnapshotStore(""), upstreamScheduler, hotCharacterTracker, meterRegistry,
+                WAIT_TIMEOUT, maxBatchSize, lookupThreads));
+        Mockito.lenient().doReturn(API_URI).when(marvelServiceSpy).getApiUri();
+        return marvelServiceSpy;
+    }
+}
@@ -0,0 +1,99 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import yapily.marvel.exceptions.CharacterNotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+
+    @Test
+    void execute_will_share_one_call_between_concurrent_callers() throws Exception {
+        int callers = 8;
+        AtomicInteger calls = new AtomicInteger();
+        //Every caller but the one loading counts down right before it waits, so the load only completes once they all joined it
+        CountDownLatch joined = new CountDownLatch(callers - 1);
+        SingleFlight<Long, String> joinedSingleFlight = new SingleFlight<>(Duration.ofSeconds(5), joined::countDown);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> joinedSingleFlight.execute(100L, () -> {
+                    calls.incrementAndGet();
+                    Assertions.assertThat(joined.await(5, TimeUnit.SECONDS)).isTrue();
+                    return "SpiderMan";
+                })));
+            }
+
+            for (Future<String> result : results) {
+                Assertions.assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("SpiderMan");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertThat(calls.get()).isEqualTo(1);
+        Assertions.assertThat(joinedSingleFlight.size()).isZero();
+    }
+
+    @Test
+    void execute_will_stop_waiting_for_the_running_call_after_the_timeout() throws Exception {
+        SingleFlight<Long, String> shortSingleFlight = new SingleFlight<>(Duration.ofMillis(10));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> leader = executor.submit(() -> shortSingleFlight.execute(100L, () -> {
+                loading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "SpiderMan";
+            }));
+            Assertions.assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThrows(TimeoutException.class,
+                    () -> {
+                        shortSingleFlight.execute(100L, () -> "Venom");
+                    });
+
+            release.countDown();
+            Assertions.assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("SpiderMan");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_will_load_again_once_the_previous_call_completed() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute(100L, () -> "SpiderMan" + calls.incrementAndGet());
+
+        Assertions.assertThat(singleFlight.execute(100L, () -> "SpiderMan" + calls.incrementAndGet())).isEqualTo("SpiderMan2");
+    }
+
+    @Test
+    void execute_will_rethrow_the_exception_of_the_loader() {
+        assertThrows(CharacterNotFoundException.class,
+                () -> {
+                    singleFlight.execute(100L, () -> {
+                        throw new CharacterNotFoundException(100L);
+                    });
+                });
+        Assertions.assertThat(singleFlight.size()).isZero();
+    }
+}
@@ -0,0 +1,202 @@
+package yapily.marvel.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import yapily.marvel.CacheConfig;
+import yapily.marvel.exceptions.TranslationRejectedException;
+import yapily.marvel.exceptions.TranslationUnavailableException;
+import yapily.marvel.exceptions.YandexApiKeyNotFoundException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static yapily.marvel.service.TranslateServiceImpl.EXTERNAL_YANDEX_API;
+
+class TranslateServiceImplTest {
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplateBuilder builder = mock(RestTemplateBuilder.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void translate_will_call_yandex_once_and_cache_the_translation() throws YandexApiKeyNotFoundException, TranslationUnavailableException,
+            IOException {
+        TranslateServiceImpl translateService = createTranslateService(new ConcurrentMapCacheManager());
+
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(startsWith(EXTERNAL_YANDEX_API + "?key=yandex_key&lang=en-de")))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{\"code\":200,\"lang\":\"en-de\",\"text\":[\"Unser geliebter Spiderman\"]}",
+                        MediaType.APPLICATION_JSON));
+
+        Assertions.assertThat(translateService.translate("Our beloved Spiderman", "en", "de")).isEqualTo("Unser geliebter Spiderman");
+        Assertions.assertThat(translateService.translate("Our beloved Spiderman", "en", "de")).isEqualTo("Unser geliebter Spiderman");
+        server.verify();
+    }
+
+    @Test
+    void translate_will_return_cached_translation() throws YandexApiKeyNotFoundException, TranslationUnavailableException,
+            IOException {
+        CacheManager cacheManager = new ConcurrentMapCacheManager();
+        TranslateServiceImpl translateService = createTranslateService(cacheManager);
+
+        cacheManager.getCache(CacheConfig.TRANSLATIONS_CACHE).put(TranslateServiceImpl.getCacheKey("Our beloved Spiderman", "en", "de"),
+                "Unser geliebter Spiderman");
+
+        Assertions.assertThat(translateService.translate("Our beloved Spiderman", "en", "de")).isEqualTo("Unser geliebter Spiderman");
+    }
+
+    @Test
+    void translate_will_not_translate_empty_text() throws YandexApiKeyNotFoundException, TranslationUnavailableException,
+            IOException {
+        TranslateServiceImpl translateService = createTranslateService(new ConcurrentMapCacheManager());
+
+        Assertions.assertThat(translateService.translate("", "en", "de")).isEmpty();
+    }
+
+    @Test
+    void translateAll_will_pack_the_missing_translations_into_one_call() throws YandexApiKeyNotFoundException,
+            TranslationUnavailableException, IOException {
+        CacheManager cacheManager = new ConcurrentMapCacheManager();
+        TranslateServiceImpl translateService = createTranslateService(cacheManager);
+        cacheManager.getCache(CacheConfig.TRANSLATIONS_CACHE).put(TranslateServiceImpl.getCacheKey("Our beloved Thor", "en", "de"),
+                "Unser geliebter Thor");
+
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("text", "Our beloved Spiderman");
+        form.add("text", "Our beloved Hulk");
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(startsWith(EXTERNAL_YANDEX_API + "?key=yandex_key&lang=en-de")))
+                .andExpect(content().formData(form))
+                .andRespond(withSuccess("{\"code\":200,\"lang\":\"en-de\",\"text\":[\"Unser geliebter Spiderman\"," +
+                        "\"Unser geliebter Hulk\"]}", MediaType.APPLICATION_JSON));
+
+        Assertions.assertThat(translateService.translateAll(Arrays.asList("Our beloved Spiderman", "Our beloved Thor", "", null,
+                "Our beloved Hulk", "Our beloved Spiderman"), "en", "de"))
+                .containsExactly("Unser geliebter Spiderman", "Unser geliebter Thor", "", null, "Unser geliebter Hulk",
+                        "Unser geliebter Spiderman");
+        Assertions.assertThat(translateService.translate("Our beloved Hulk", "en", "de")).isEqualTo("Unser geliebter Hulk");
+        server.verify();
+    }
+
+    @Test
+    void getCacheKey_will_differ_per_language() {
+        Assertions.assertThat(TranslateServiceImpl.getCacheKey("Our beloved Spiderman", "en", "de"))
+                .isNotEqualTo(TranslateServiceImpl.getCacheKey("Our beloved Spiderman", "en", "fr"))
+                .isEqualTo(TranslateServiceImpl.getCacheKey("Our beloved Spiderman", "en", "de"));
+    }
+
+    @Test
+    void translate_will_open_the_circuit_once_yandex_keeps_failing() throws IOException {
+        TranslateServiceImpl translateService = createTranslateService(new ConcurrentMapCacheManager(), Duration.ofSeconds(5), 2);
+
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(ExpectedCount.times(2), requestTo(startsWith(EXTERNAL_YANDEX_API))).andRespond(withServerError());
+
+        assertThrows(TranslationUnavailableException.class, () -> translateService.translate("Our beloved Spiderman", "en", "de"));
+        assertThrows(TranslationUnavailableException.class, () -> translateService.translate("Our beloved Hulk", "en", "de"));
+        Assertions.assertThat(translateService.getCircuitBreakerState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        //The circuit is open, so Yandex isn't called again
+        assertThrows(TranslationUnavailableException.class, () -> translateService.translate("Our beloved Thor", "en", "de"));
+        server.verify();
+    }
+
+    @Test
+    void translate_will_not_open_the_circuit_for_an_unsupported_language() throws IOException {
+        TranslateServiceImpl translateService = createTranslateService(new ConcurrentMapCacheManager(), Duration.ofSeconds(5), 2);
+
+        //Yandex answers 501 for a translation direction it doesn't support
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(ExpectedCount.times(3), requestTo(startsWith(EXTERNAL_YANDEX_API)))
+                .andRespond(withStatus(HttpStatus.NOT_IMPLEMENTED));
+
+        assertThrows(TranslationRejectedException.class, () -> translateService.translate("Our beloved Spiderman", "en", "xx"));
+        assertThrows(TranslationRejectedException.class, () -> translateService.translate("Our beloved Hulk", "en", "xx"));
+        assertThrows(TranslationRejectedException.class, () -> translateService.translate("Our beloved Thor", "en", "xx"));
+        Assertions.assertThat(translateService.getCircuitBreakerState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        server.verify();
+    }
+
+    @Test
+    void translate_will_give_up_on_slow_translations() throws IOException {
+        TranslateServiceImpl translateService = createTranslateService(new ConcurrentMapCacheManager(), Duration.ofMillis(50), 5);
+
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(startsWith(EXTERNAL_YANDEX_API))).andRespond(request -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return withSuccess("{\"code\":200,\"lang\":\"en-de\",\"text\":[\"Unser geliebter Spiderman\"]}", MediaType.APPLICATION_JSON)
+                    .createResponse(request);
+        });
+
+        assertThrows(TranslationUnavailableException.class, () -> translateService.translate("Our beloved Spiderman", "en", "de"));
+    }
+
+    @Test
+    void pretranslate_will_not_open_the_circuit_when_it_gives_up_on_slow_translations() throws IOException {
+        TranslateServiceImpl translateService = createTranslateService(new ConcurrentMapCacheManager(), Duration.ofMillis(50), 1);
+
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(startsWith(EXTERNAL_YANDEX_API))).andRespond(request -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return withSuccess("{\"code\":200,\"lang\":\"en-de\",\"text\":[\"Unser geliebter Spiderman\"]}", MediaType.APPLICATION_JSON)
+                    .createResponse(request);
+        });
+
+        assertThrows(TranslationUnavailableException.class,
+                () -> translateService.pretranslate(Arrays.asList("Our beloved Spiderman"), "en", "de"));
+        Assertions.assertThat(translateService.getCircuitBreakerState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private TranslateServiceImpl createTranslateService(CacheManager cacheManager) throws IOException {
+        return createTranslateService(cacheManager, Duration.ofSeconds(5), 5);
+    }
+
+    private TranslateServiceImpl createTranslateService(CacheManager cacheManager, Duration timeout, int failureThreshold)
+            throws IOException {
+        Path apiKeys = Files.write(tempDir.resolve("api_key"), Arrays.asList("marvel.key.public = public_key",
+                "marvel.key.private = private_key", "yandex.key = yandex_key"));
+        when(builder.build()).thenReturn(restTemplate);
+
+        UpstreamScheduler upstreamScheduler = new UpstreamScheduler(new SimpleMeterRegistry(), 1000, 1000, 1000, 1000, Duration.ofMillis(1),
+                Duration.ofMillis(10), 0, Duration.ofSeconds(5));
+        return new TranslateServiceImpl(builder, cacheManager, new ApiKeyProvider(apiKeys.toString(), "marvel.key.public",
+                "marvel.key.private", "yandex.key"), upstreamScheduler, new SimpleMeterRegistry(), 2, 2, timeout, timeout,
+                failureThreshold, Duration.ofMinutes(1), 32, 10000, 1, Duration.ofMillis(10));
+    }
+}
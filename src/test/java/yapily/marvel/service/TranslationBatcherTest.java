@@ -0,0 +1,107 @@
+package yapily.marvel.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import yapily.marvel.service.UpstreamScheduler.Priority;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TranslationBatcherTest {
+    private final ConcurrentLinkedQueue<List<String>> batches = new ConcurrentLinkedQueue<>();
+    private final TranslationBatcher.Translator translator = (texts, fromLanguageCode, toLanguageCode, priority) -> {
+        batches.add(new ArrayList<>(texts));
+        return texts.stream().map(text -> toLanguageCode + ":" + text).collect(Collectors.toList());
+    };
+
+    private TranslationBatcher translationBatcher;
+
+    @AfterEach
+    void shutdown() {
+        translationBatcher.shutdown();
+    }
+
+    @Test
+    void submit_will_pack_the_texts_sent_within_the_window_into_one_batch() throws Exception {
+        translationBatcher = new TranslationBatcher(10, 1000, 1, Duration.ofMillis(50), Runnable::run, translator);
+
+        CompletableFuture<String> spiderman = translationBatcher.submit("Spiderman", "en", "de", Priority.INTERACTIVE);
+        CompletableFuture<String> hulk = translationBatcher.submit("Hulk", "en", "de", Priority.INTERACTIVE);
+        CompletableFuture<String> thor = translationBatcher.submit("Thor", "en", "fr", Priority.INTERACTIVE);
+
+        Assertions.assertThat(spiderman.get(1, TimeUnit.SECONDS)).isEqualTo("de:Spiderman");
+        Assertions.assertThat(hulk.get(1, TimeUnit.SECONDS)).isEqualTo("de:Hulk");
+        Assertions.assertThat(thor.get(1, TimeUnit.SECONDS)).isEqualTo("fr:Thor");
+        Assertions.assertThat(batches).containsExactlyInAnyOrder(Arrays.asList("Spiderman", "Hulk"), Collections.singletonList("Thor"));
+    }
+
+    @Test
+    void submit_will_send_a_batch_as_soon_as_it_is_full() throws Exception {
+        translationBatcher = new TranslationBatcher(2, 1000, 1, Duration.ofMinutes(1), Runnable::run, translator);
+
+        CompletableFuture<String> spiderman = translationBatcher.submit("Spiderman", "en", "de", Priority.INTERACTIVE);
+        CompletableFuture<String> hulk = translationBatcher.submit("Hulk", "en", "de", Priority.INTERACTIVE);
+
+        Assertions.assertThat(spiderman.getNow(null)).isEqualTo("de:Spiderman");
+        Assertions.assertThat(hulk.getNow(null)).isEqualTo("de:Hulk");
+        Assertions.assertThat(batches).containsExactly(Arrays.asList("Spiderman", "Hulk"));
+    }
+
+    @Test
+    void submit_will_start_a_new_batch_when_the_text_would_exceed_the_maximum_characters() throws Exception {
+        translationBatcher = new TranslationBatcher(10, 12, 1, Duration.ofMillis(50), Runnable::run, translator);
+
+        CompletableFuture<String> spiderman = translationBatcher.submit("Spiderman", "en", "de", Priority.INTERACTIVE);
+        CompletableFuture<String> hulk = translationBatcher.submit("Hulk", "en", "de", Priority.INTERACTIVE);
+
+        Assertions.assertThat(spiderman.get(1, TimeUnit.SECONDS)).isEqualTo("de:Spiderman");
+        Assertions.assertThat(hulk.get(1, TimeUnit.SECONDS)).isEqualTo("de:Hulk");
+        Assertions.assertThat(batches).containsExactly(Collections.singletonList("Spiderman"), Collections.singletonList("Hulk"));
+    }
+
+    @Test
+    void submit_will_hold_background_batches_back_while_the_others_are_in_flight() {
+        ConcurrentLinkedQueue<Runnable> calls = new ConcurrentLinkedQueue<>();
+        translationBatcher = new TranslationBatcher(1, 1000, 1, Duration.ofMinutes(1), calls::add, translator);
+
+        CompletableFuture<String> spiderman = translationBatcher.submit("Spiderman", "en", "de", Priority.BACKGROUND);
+        CompletableFuture<String> hulk = translationBatcher.submit("Hulk", "en", "de", Priority.BACKGROUND);
+        CompletableFuture<String> thor = translationBatcher.submit("Thor", "en", "de", Priority.INTERACTIVE);
+
+        //Interactive batches are never held back
+        Assertions.assertThat(calls).hasSize(2);
+        calls.poll().run();
+        Assertions.assertThat(spiderman.getNow(null)).isEqualTo("de:Spiderman");
+        Assertions.assertThat(calls).hasSize(2);
+        calls.forEach(Runnable::run);
+        Assertions.assertThat(hulk.getNow(null)).isEqualTo("de:Hulk");
+        Assertions.assertThat(thor.getNow(null)).isEqualTo("de:Thor");
+        Assertions.assertThat(batches).containsExactly(Collections.singletonList("Spiderman"), Collections.singletonList("Thor"),
+                Collections.singletonList("Hulk"));
+    }
+
+    @Test
+    void submit_will_fail_every_text_of_a_batch_the_executor_rejects() {
+        translationBatcher = new TranslationBatcher(1, 1000, 1, Duration.ofMinutes(1), command -> {
+            throw new RejectedExecutionException();
+        }, translator);
+
+        CompletableFuture<String> spiderman = translationBatcher.submit("Spiderman", "en", "de", Priority.INTERACTIVE);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> spiderman.get(1, TimeUnit.SECONDS));
+        Assertions.assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+        Assertions.assertThat(batches).isEmpty();
+    }
+}
@@ -0,0 +1,170 @@
+package yapily.marvel.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import yapily.marvel.exceptions.UpstreamUnavailableException;
+import yapily.marvel.service.UpstreamScheduler.Priority;
+import yapily.marvel.service.UpstreamScheduler.Upstream;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpstreamSchedulerTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UpstreamScheduler upstreamScheduler = new UpstreamScheduler(meterRegistry, 1000, 1000, 1000, 1000, Duration.ofMillis(1),
+            Duration.ofMillis(10), 2, Duration.ofSeconds(5));
+
+    @Test
+    void execute_will_retry_too_many_requests_until_the_call_succeeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String response = upstreamScheduler.execute(Upstream.MARVEL, Priority.INTERACTIVE, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", HttpHeaders.EMPTY, null, null);
+            }
+            return "SpiderMan";
+        });
+
+        Assertions.assertThat(response).isEqualTo("SpiderMan");
+        Assertions.assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void execute_will_give_up_after_the_last_retry() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(UpstreamUnavailableException.class,
+                () -> {
+                    upstreamScheduler.execute(Upstream.YANDEX, Priority.BACKGROUND, () -> {
+                        calls.incrementAndGet();
+                        throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+                    });
+                });
+        Assertions.assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void execute_will_give_up_instead_of_retrying_before_the_retry_after() {
+        AtomicInteger calls = new AtomicInteger();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", "60");
+
+        assertThrows(UpstreamUnavailableException.class,
+                () -> {
+                    upstreamScheduler.execute(Upstream.MARVEL, Priority.BACKGROUND, () -> {
+                        calls.incrementAndGet();
+                        throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", headers, null, null);
+                    });
+                });
+        Assertions.assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void execute_will_give_up_once_the_next_retry_would_miss_the_deadline() {
+        UpstreamScheduler slowScheduler = new UpstreamScheduler(meterRegistry, 1000, 1000, 1000, 1000, Duration.ofSeconds(1),
+                Duration.ofSeconds(10), 3, Duration.ofMillis(100));
+        AtomicInteger calls = new AtomicInteger();
+        long start = System.nanoTime();
+
+        assertThrows(UpstreamUnavailableException.class,
+                () -> {
+                    slowScheduler.execute(Upstream.MARVEL, Priority.INTERACTIVE, () -> {
+                        calls.incrementAndGet();
+                        throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+                    });
+                });
+        Assertions.assertThat(calls).hasValue(1);
+        Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+    }
+
+    @Test
+    void execute_will_not_retry_other_client_errors() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.NotFound.class,
+                () -> {
+                    upstreamScheduler.execute(Upstream.MARVEL, Priority.INTERACTIVE, () -> {
+                        calls.incrementAndGet();
+                        throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, null, null);
+                    });
+                });
+        Assertions.assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void execute_will_not_retry_not_implemented() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.NotImplemented.class,
+                () -> {
+                    upstreamScheduler.execute(Upstream.YANDEX, Priority.INTERACTIVE, () -> {
+                        calls.incrementAndGet();
+                        throw HttpServerErrorException.create(HttpStatus.NOT_IMPLEMENTED, "Not Implemented", HttpHeaders.EMPTY, null, null);
+                    });
+                });
+        Assertions.assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void execute_will_record_every_attempt_and_retry() {
+        AtomicInteger calls = new AtomicInteger();
+
+        upstreamScheduler.execute(Upstream.YANDEX, Priority.INTERACTIVE, () -> {
+            if (calls.incrementAndGet() < 2) {
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            }
+            return "Hombre Araña";
+        });
+
+        Assertions.assertThat(meterRegistry.get("upstream.requests").tags("upstream", "Yandex", "status", "502").timer().count())
+                .isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("upstream.requests").tags("upstream", "Yandex", "status", "2xx").timer().count())
+                .isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("upstream.retries").tags("upstream", "Yandex").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_will_hand_the_next_token_to_interactive_callers_first() throws InterruptedException {
+        TokenBucket tokenBucket = new TokenBucket(10, 1);
+        tokenBucket.acquire(true);
+        ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+
+        Thread background = new Thread(() -> acquire(tokenBucket, false, "background", order));
+        background.start();
+        //Let the background caller start waiting for the next token before the interactive one arrives
+        Thread.sleep(20);
+        Thread interactive = new Thread(() -> acquire(tokenBucket, true, "interactive", order));
+        interactive.start();
+
+        background.join(2000);
+        interactive.join(2000);
+        Assertions.assertThat(order).containsExactly("interactive", "background");
+    }
+
+    @Test
+    void pause_will_drop_the_available_tokens() {
+        TokenBucket tokenBucket = new TokenBucket(1, 5);
+        Assertions.assertThat(tokenBucket.getAvailableTokens()).isEqualTo(5);
+
+        tokenBucket.pause(1000);
+
+        Assertions.assertThat(tokenBucket.getAvailableTokens()).isZero();
+    }
+
+    private static void acquire(TokenBucket tokenBucket, boolean interactive, String caller, ConcurrentLinkedQueue<String> order) {
+        try {
+            tokenBucket.acquire(interactive);
+            order.add(caller);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}